@@ -0,0 +1,54 @@
+package com.github.zkq.emulator.chip8.bench;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.ExecutionMode;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Rom;
+import com.github.zkq.emulator.chip8.core.Screen;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date:2026/10/18 16:25
+ * <p>
+ * Instance construction, from raw rom bytes and from a {@link Rom} shared by all instances.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+
+    private byte[] bytes;
+    private Rom rom;
+
+    @Setup
+    public void setup() {
+        bytes = Roms.load("maze.ch8");
+        rom = Rom.of(bytes);
+    }
+
+    @Benchmark
+    public Chip8 fromBytes() {
+        return new Chip8(bytes, new Screen(), new Keyboard(), ExecutionMode.INTERPRETER);
+    }
+
+    @Benchmark
+    public Chip8 fromSharedRom() {
+        return new Chip8(rom, new Screen(), new Keyboard(), ExecutionMode.INTERPRETER);
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.zkq.emulator.chip8.bench;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.ExecutionMode;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Screen;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date:2026/10/18 16:10
+ * <p>
+ * Cost of one instruction per opcode family, each family run as a tight loop of its instructions.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpcodeBenchmark {
+
+    private static final int CYCLES = 1024;
+
+    public enum Family {
+        ALU(0x6012, 0x7103, 0x8014, 0x8125, 0x8216, 0x831E, 0x8401, 0x8502, 0x8603, 0x8717),
+        MEMORY(0xA300, 0xF31E, 0xF333, 0xA300, 0xF355, 0xF365, 0xF029),
+        BRANCH(0x3001, 0x4001, 0x5010, 0x9010, 0x6000),
+        DRAW(0xA300, 0xD015, 0xD01F, 0x00E0),
+        TIMER_KEY(0xF015, 0xF007, 0xF018, 0xE09E, 0xE0A1);
+
+        final int[] ops;
+
+        Family(int... ops) {
+            this.ops = ops;
+        }
+    }
+
+    @Param
+    private Family family;
+
+    @Param
+    private ExecutionMode mode;
+
+    private Chip8 chip8;
+
+    @Setup
+    public void setup() {
+        chip8 = new Chip8(Roms.loop(family.ops), new Screen(), new Keyboard(), mode);
+        chip8.setIdleDetection(false);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int step() {
+        return chip8.step(CYCLES);
+    }
+}
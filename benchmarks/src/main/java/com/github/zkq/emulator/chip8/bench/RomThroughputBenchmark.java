@@ -0,0 +1,64 @@
+package com.github.zkq.emulator.chip8.bench;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.CompatibilityProfile;
+import com.github.zkq.emulator.chip8.core.ExecutionMode;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Rom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date:2026/10/18 16:20
+ * <p>
+ * Whole-rom throughput, the score is instructions per second. The profiles differ in the variant instructions the
+ * interpreter dispatches to.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RomThroughputBenchmark {
+
+    private static final int CYCLES = 100_000;
+
+    @Param({"maze.ch8", "bcd.ch8", "alu.ch8"})
+    private String rom;
+
+    @Param
+    private ExecutionMode mode;
+
+    @Param({"DEFAULT", "COSMAC_VIP"})
+    private CompatibilityProfile profile;
+
+    private Chip8 chip8;
+
+    @Setup
+    public void setup() {
+        chip8 = new Chip8(Rom.of(Roms.load(rom)), profile.getMachine().createScreen(), new Keyboard(), mode, profile);
+        chip8.setSeed(rom.hashCode());
+        chip8.setIdleDetection(false);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public int run() {
+        return chip8.step(CYCLES);
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.zkq.emulator.chip8.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Date:2026/10/18 16:05
+ * <p>
+ * Roms used by the benchmarks. The bundled ones under /roms are written for this project and public domain.
+ *
+ * @author agent
+ */
+final class Roms {
+
+    static final int LOOP_LENGTH = 32;
+
+    private Roms() {
+    }
+
+    static byte[] load(String name) {
+        try (InputStream in = Roms.class.getResourceAsStream("/roms/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("no bundled rom " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return a rom repeating the given instructions {@link #LOOP_LENGTH} times in an endless loop
+     */
+    static byte[] loop(int... ops) {
+        byte[] rom = new byte[LOOP_LENGTH * ops.length * 2 + 2];
+        int p = 0;
+        for (int n = 0; n < LOOP_LENGTH; n++) {
+            for (int op : ops) {
+                rom[p++] = (byte) (op >> 8);
+                rom[p++] = (byte) op;
+            }
+        }
+        // JP 200
+        rom[p++] = 0x12;
+        rom[p] = 0x00;
+        return rom;
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.zkq.emulator.chip8.bench;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.ExecutionMode;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Rom;
+import com.github.zkq.emulator.chip8.core.Screen;
+import com.github.zkq.emulator.chip8.host.BatchRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date:2026/10/18 16:30
+ * <p>
+ * Many instances on a {@link BatchRunner} with a growing number of workers, the score is frames per second over all
+ * instances. Single-instance scaling over JMH threads can be measured with {@code -t} on the other benchmarks.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScalingBenchmark {
+
+    private static final int INSTANCES = 256;
+    private static final int FRAMES = 60;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private Rom rom;
+    private BatchRunner runner;
+    private Chip8[] instances;
+
+    @Setup(Level.Trial)
+    public void setupRunner() {
+        rom = Rom.of(Roms.load("bcd.ch8"));
+        runner = new BatchRunner(parallelism);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInstances() {
+        instances = new Chip8[INSTANCES];
+        for (int n = 0; n < INSTANCES; n++) {
+            instances[n] = new Chip8(rom, new Screen(), new Keyboard(), ExecutionMode.CACHED);
+            instances[n].setCyclesPerFrame(1000);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        runner.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTANCES * FRAMES)
+    public void frames() {
+        CompletableFuture<?>[] done = new CompletableFuture<?>[INSTANCES];
+        for (int n = 0; n < INSTANCES; n++) {
+            done[n] = runner.submit(instances[n], FRAMES).completion();
+        }
+        CompletableFuture.allOf(done).join();
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.zkq.emulator.chip8.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date:2026/10/18 16:35
+ * <p>
+ * The draw path on its own. Lives in the core package to reach {@link Screen#clear()}.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScreenBenchmark {
+
+    private static final int SPRITE_ROWS = 15;
+
+    private Screen screen;
+    private byte[] sprite;
+    private int x;
+
+    @Setup
+    public void setup() {
+        screen = new Screen();
+        sprite = new byte[SPRITE_ROWS];
+        for (int j = 0; j < SPRITE_ROWS; j++) {
+            sprite[j] = (byte) (0x81 | j << 2);
+        }
+    }
+
+    @Benchmark
+    public boolean xorPixels() {
+        x = (x + 7) & 0x7F;
+        return screen.xorPixels(x, x >> 2, sprite[x & 7]);
+    }
+
+    /**
+     * a full Dxyn with n = 15, wrapping at the edges
+     */
+    @Benchmark
+    @OperationsPerInvocation(SPRITE_ROWS)
+    public boolean drawSprite() {
+        x = (x + 7) & 0x7F;
+        boolean collision = false;
+        for (int j = 0; j < SPRITE_ROWS; j++) {
+            collision |= screen.xorPixels(x, x + j, sprite[j]);
+        }
+        return collision;
+    }
+
+    @Benchmark
+    public Screen clear() {
+        screen.clear();
+        return screen;
+    }
+}
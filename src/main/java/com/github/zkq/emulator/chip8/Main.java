@@ -1,16 +1,41 @@
 package com.github.zkq.emulator.chip8;
 
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.CompatibilityProfile;
+import com.github.zkq.emulator.chip8.core.ExecutionMode;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Rom;
 import com.github.zkq.emulator.chip8.gui.Emulator;
 
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 /**
  * Date:2020/4/14 11:25
  *
  * @author zhoukq
  */
 public class Main {
-    public static void main(String[] args) {
-        Emulator emulator = new Emulator();
 
+    /**
+     * usage: Main rom [INTERPRETER|CACHED|RECOMPILER] [profile]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: Main rom [INTERPRETER|CACHED|RECOMPILER] [profile]");
+            System.exit(1);
+        }
+        byte[] rom = Files.readAllBytes(Paths.get(args[0]));
+        ExecutionMode mode = args.length > 1 ? ExecutionMode.valueOf(args[1]) : ExecutionMode.CACHED;
+        CompatibilityProfile profile = args.length > 2 ? CompatibilityProfile.valueOf(args[2])
+                                                       : CompatibilityProfile.DEFAULT;
 
+        Chip8 chip8 = new Chip8(Rom.of(rom), profile.getMachine().createScreen(), new Keyboard(), mode, profile);
+        SwingUtilities.invokeLater(() -> {
+            Emulator emulator = new Emulator(chip8);
+            emulator.getChip8().start();
+        });
     }
 }
@@ -2,12 +2,15 @@ package com.github.zkq.emulator.chip8.core;
 
 import com.github.zkq.emulator.chip8.Commons;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.Objects;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -18,33 +21,76 @@ import java.util.logging.Logger;
 public class Chip8 {
 
     private static final Logger LOGGER = Logger.getLogger(Chip8.class.getName());
-    private static final int[] HEX_CHARS = new int[]{
-            0xF0, 0x90, 0x90, 0x90, 0xF0, // 0
-            0x20, 0x60, 0x20, 0x20, 0x70, // 1
-            0xF0, 0x10, 0xF0, 0x80, 0xF0, // 2
-            0xF0, 0x10, 0xF0, 0x10, 0xF0, // 3
-            0x90, 0x90, 0xF0, 0x10, 0x10, // 4
-            0xF0, 0x80, 0xF0, 0x10, 0xF0, // 5
-            0xF0, 0x80, 0xF0, 0x90, 0xF0, // 6
-            0xF0, 0x10, 0x20, 0x40, 0x40, // 7
-            0xF0, 0x90, 0xF0, 0x90, 0xF0, // 8
-            0xF0, 0x90, 0xF0, 0x10, 0xF0, // 9
-            0xF0, 0x90, 0xF0, 0x90, 0x90, // A
-            0xE0, 0x90, 0xE0, 0x90, 0xE0, // B
-            0xF0, 0x80, 0x80, 0x80, 0xF0, // C
-            0xE0, 0x90, 0x90, 0x90, 0xE0, // D
-            0xF0, 0x80, 0xF0, 0x80, 0xF0, // E
-            0xF0, 0x80, 0xF0, 0x80, 0x80 // F
-    };
+    /**
+     * "C8SS"
+     */
+    private static final int SNAPSHOT_MAGIC = 0x43385353;
+    /**
+     * the only layout {@link #restore(ByteBuffer)} reads, changed whenever the layout does
+     */
+    private static final short SNAPSHOT_VERSION = 4;
+    /**
+     * magic, version, memory size
+     */
+    private static final int SNAPSHOT_HEADER_SIZE = 4 + 2 + 4;
+    /**
+     * v; stack; i, dt, st, pc, sp; cycles; random; keyboard: the packed {@link Keyboard#getState()}, held keys, last
+     * key and press count
+     */
+    private static final int SNAPSHOT_CPU_SIZE = 0x10 + 16 * 2 + 2 + 1 + 1 + 2 + 1 + 8 + 8 + 4;
+    /**
+     * profile, rpl, audio pattern, pitch
+     */
+    private static final int SNAPSHOT_MACHINE_SIZE = 1 + 0x10 + 0x10 + 1;
+    private static final int SNAPSHOT_FIXED_SIZE = SNAPSHOT_HEADER_SIZE + SNAPSHOT_CPU_SIZE + SNAPSHOT_MACHINE_SIZE;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
 
     // cpu frequency 500Hz
-    private final int frequency = 500;
-    private final ScheduledExecutorService mainThread = new ScheduledThreadPoolExecutor(1,
-                                                                                        r -> new Thread("main thread"));
+    private static final int DEFAULT_FREQUENCY = 500;
+    /**
+     * backward jumps over at most this many bytes are checked for idle loops
+     */
+    private static final int IDLE_LOOP_BYTES = 8;
     /**
-     * 4,096 b
+     * only created by {@link #start()}, headless callers drive the cpu through {@link #step(int)}
      */
-    private final byte[] memory = new byte[0x1000];
+    private ExecutorService mainThread;
+    private VirtualClock clock;
+    /**
+     * 4 KB, 64 KB on XO-CHIP, paged and shared with the rom until written
+     */
+    private final Memory memory;
+    /**
+     * memory size - 1, I wraps at the end of memory, pc always at 4 KB
+     */
+    private final int addressMask;
+    private final Rom rom;
+    private final CompatibilityProfile profile;
+    /**
+     * {@link CompatibilityProfile#decoder()} of profile, what the interpreter executes for each instruction word
+     */
+    private final Opcode[] opcodes;
+    /**
+     * the screen if the machine is SUPER-CHIP or XO-CHIP, null on CHIP-8
+     */
+    private final ExtendedScreen extended;
+    /**
+     * XO-CHIP, skips step over both words of F000 nnnn
+     */
+    private final boolean longInstructions;
+    /**
+     * SUPER-CHIP RPL user flags, Fx75 and Fx85
+     */
+    private final byte[] rpl = new byte[0x10];
+    /**
+     * XO-CHIP audio pattern buffer and pitch, F002 and Fx3A
+     */
+    private final byte[] audioPattern = new byte[0x10];
+    private int pitch = 64;
+    /**
+     * sprite bytes of all selected planes, for {@link ExtendedScreen#draw}
+     */
+    private final byte[] sprite = new byte[ExtendedScreen.PLANES * 32];
     /**
      * 16 Registers
      * v0,v1,v2...vF
@@ -72,7 +118,7 @@ public class Chip8 {
      */
     private int pc = 0;
     /**
-     * stack pointer (SP)  8-bit
+     * stack pointer (SP)  8-bit, the number of entries in use, 0 -> 16
      */
     private byte sp = 0;
 
@@ -81,34 +127,213 @@ public class Chip8 {
      */
     private final Keyboard keyboard;
 
-    private ScheduledFuture<?> mainLoop;
+    private Future<?> mainLoop;
+
+    /**
+     * instructions per 60 Hz frame
+     */
+    private int cyclesPerFrame = DEFAULT_FREQUENCY / VirtualClock.FRAME_RATE;
+
+    /**
+     * instructions executed so far
+     */
+    private long cycles = 0;
+
+    /**
+     * random generator state, see {@link #setSeed(long)}
+     */
+    private long seed = System.nanoTime() * GOLDEN_GAMMA;
+
+    private InputJournal journal;
+
+    /**
+     * press count when Fx0A started waiting, -1 when not waiting
+     */
+    private int keyWait = -1;
+    /**
+     * set by Fx0A to end the current batch early
+     */
+    private boolean suspended;
+
+    private boolean idleDetection = true;
+    /**
+     * address of the jump closing an idle loop, armed on the first pass, -1 if none
+     */
+    private int idleJump = -1;
+    /**
+     * registers and I when the idle loop was armed, a pass that leaves them unchanged repeats forever
+     */
+    private final byte[] idleV = new byte[0x10];
+    private int idleI;
+    /**
+     * set when the current batch ended in an idle loop
+     */
+    private boolean idle;
+    /**
+     * delay timer and keyboard event count the idle loop was seen with
+     */
+    private byte idleDt;
+    private int idleEvents;
+    private long idleCycles;
+
+    private ExecutionMode executionMode = ExecutionMode.INTERPRETER;
+    /**
+     * decoded instruction per even address, only allocated in {@link ExecutionMode#CACHED}
+     */
+    private Instruction[] decoded;
+    /**
+     * only created in {@link ExecutionMode#RECOMPILER}
+     */
+    private Recompiler recompiler;
+    private Profiler profiler;
+    private final ExecutionTrace trace = new ExecutionTrace();
+    private boolean tracing;
+    private int faults;
 
     public Chip8(byte[] rom, Screen screen, Keyboard keyboard) {
+        this(rom, screen, keyboard, ExecutionMode.INTERPRETER);
+    }
+
+    public Chip8(byte[] rom, Screen screen, Keyboard keyboard, ExecutionMode executionMode) {
+        this(Rom.of(rom), screen, keyboard, executionMode);
+    }
+
+    /**
+     * Instances created from the same {@link Rom} share its memory pages until they write to them.
+     */
+    public Chip8(Rom rom, Screen screen, Keyboard keyboard, ExecutionMode executionMode) {
+        this(rom, screen, keyboard, executionMode, CompatibilityProfile.DEFAULT);
+    }
+
+    /**
+     * @param profile the behaviour of the instructions interpreters disagree on, fixed for the life of the instance
+     */
+    public Chip8(Rom rom, Screen screen, Keyboard keyboard, ExecutionMode executionMode,
+                 CompatibilityProfile profile) {
         this.screen = screen;
         Objects.requireNonNull(rom, "Empty Rom!");
         Objects.requireNonNull(keyboard, "Empty Keyboard!");
-        Commons.assertCondition(rom.length > (0x1000 - 0x200),
-                                (Supplier<IllegalArgumentException>) () -> new IllegalArgumentException("rom is too big"));
+        Objects.requireNonNull(profile, "Empty CompatibilityProfile!");
+        CompatibilityProfile.Machine machine = profile.getMachine();
+        Commons.assertCondition(machine != CompatibilityProfile.Machine.CHIP_8 && !(screen instanceof ExtendedScreen),
+                                (Supplier<IllegalArgumentException>) () -> new IllegalArgumentException(
+                                        machine + " needs an ExtendedScreen"));
+
+        this.rom = rom;
+        this.profile = profile;
+        this.opcodes = profile.decoder();
+        this.extended = machine == CompatibilityProfile.Machine.CHIP_8 ? null : (ExtendedScreen) screen;
+        this.longInstructions = machine == CompatibilityProfile.Machine.XO_CHIP;
+        this.memory = new Memory(rom, machine.getMemorySize());
+        this.addressMask = memory.size() - 1;
+        this.keyboard = keyboard;
+        this.pc = Rom.LOAD_ADDRESS;
+        this.useExecutionMode(executionMode);
+    }
+
+    /**
+     * @return the number of bytes {@link #snapshot(ByteBuffer)} writes
+     */
+    public int snapshotSize() {
+        return SNAPSHOT_FIXED_SIZE + memory.size() + screen.stateSize();
+    }
 
-        for (int j = 0; j < HEX_CHARS.length; j++) {
-            this.memory[j] = (byte) HEX_CHARS[j];
+    /**
+     * Write the whole machine state into dst at its position, advancing it by {@link #snapshotSize()} bytes.
+     * Must be called from the thread driving this instance, between steps.
+     */
+    public void snapshot(ByteBuffer dst) {
+        dst.putInt(SNAPSHOT_MAGIC);
+        dst.putShort(SNAPSHOT_VERSION);
+        dst.putInt(memory.size());
+        memory.copyTo(dst);
+        dst.put(v);
+        for (int s : stack) {
+            dst.putShort((short) s);
         }
-        this.keyboard = keyboard;
-        System.arraycopy(rom, 0, memory, 0x200, rom.length);
-        this.pc = 0x200;
+        dst.putShort((short) i);
+        dst.put(dt);
+        dst.put(st);
+        dst.putShort((short) pc);
+        dst.put(sp);
+        dst.putLong(cycles);
+        dst.putLong(seed);
+        dst.putInt(keyboard.getState());
+        dst.put((byte) profile.ordinal());
+        dst.put(rpl);
+        dst.put(audioPattern);
+        dst.put((byte) pitch);
+        screen.writeTo(dst);
+    }
+
+    /**
+     * Load a state written by {@link #snapshot(ByteBuffer)} from src at its position.
+     * Must be called from the thread driving this instance, between steps.
+     */
+    public void restore(ByteBuffer src) {
+        // validate everything with absolute reads first, a rejected snapshot leaves this instance untouched
+        int base = src.position();
+        int magic = src.getInt(base);
+        short version = src.getShort(base + 4);
+        int memorySize = src.getInt(base + 6);
+        if (magic != SNAPSHOT_MAGIC || version != SNAPSHOT_VERSION || memorySize != memory.size()) {
+            throw new IllegalArgumentException("not a compatible snapshot");
+        }
+        int depth = src.get(base + SNAPSHOT_HEADER_SIZE + memorySize + 0x10 + stack.length * 2 + 2 + 1 + 1 + 2);
+        if (depth < 0 || depth > stack.length) {
+            throw new IllegalArgumentException("bad stack pointer " + depth);
+        }
+        int machineAt = base + SNAPSHOT_HEADER_SIZE + memorySize + SNAPSHOT_CPU_SIZE;
+        if (src.get(machineAt) != profile.ordinal()) {
+            throw new IllegalArgumentException("snapshot of another profile");
+        }
+        int size = SNAPSHOT_FIXED_SIZE + memorySize + screen.stateSize();
+        if (src.remaining() < size) {
+            throw new IllegalArgumentException("truncated snapshot");
+        }
+        src.position(base + SNAPSHOT_HEADER_SIZE);
+        memory.copyFrom(src);
+        src.get(v);
+        for (int j = 0; j < stack.length; j++) {
+            stack[j] = src.getShort() & 0xFFFF;
+        }
+        i = src.getShort() & 0xFFFF;
+        dt = src.get();
+        st = src.get();
+        pc = src.getShort() & 0xFFFF;
+        sp = src.get();
+        cycles = src.getLong();
+        seed = src.getLong();
+        keyboard.setState(src.getInt());
+        // profile, checked above
+        src.get();
+        src.get(rpl);
+        src.get(audioPattern);
+        pitch = src.get() & 0xFF;
+        keyWait = -1;
+        idleJump = -1;
+        idle = false;
+        trace.clear();
+        screen.readFrom(src);
+        this.invalidate(0, memory.size());
     }
 
     public synchronized void start() {
 
         if (mainLoop == null || mainLoop.isDone() || mainLoop.isCancelled()) {
-            mainLoop = mainThread.scheduleAtFixedRate(this::loop, 0, 1000 * 1000 / frequency, TimeUnit.MILLISECONDS);
+            if (mainThread == null) {
+                mainThread = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("main thread").factory());
+            }
+            clock = new VirtualClock(this);
+            mainLoop = mainThread.submit(clock);
         }
 
     }
 
     public synchronized void pause() {
-        if (Commons.isNull(mainLoop)) {
-            mainLoop.cancel(false);
+        if (Commons.isNotNull(mainLoop)) {
+            clock.stop();
+            mainLoop.cancel(true);
         }
     }
 
@@ -116,58 +341,409 @@ public class Chip8 {
         this.start();
     }
 
-    private void loop() {
-        int op = memory[pc++] << 8 | memory[pc++];
-        this.execute(op);
-    }
-
-    private void execute(int op) {
-        int x = op & 0x0F00 >> 8;
-        int y = op & 0x00F0 >> 4;
-        switch (op >> 12) {
-            case 0x0:
-                switch (op) {
-                    /*
-                       00E0 - CLS
-                       Clear the display.
-                     */
-                    case 0x00E0:
-                        this.screen.clear();
-                        break;
-
-                    /*
-                    00EE - RET
-                    Return from a subroutine.
-
-                    The interpreter sets the program counter to the address at the top of the stack, then subtracts 1 from the stack pointer.
-                     */
-                    case 0x00EE:
-                        this.pc = this.stack[sp--];
-                        break;
-                    default:
-                        // unknown operator
-                        this.unknownOp(op);
-                        break;
+    public CompatibilityProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return the XO-CHIP 128 bit audio pattern set by F002
+     */
+    public byte[] getAudioPattern() {
+        return audioPattern.clone();
+    }
+
+    /**
+     * @return the XO-CHIP pitch set by Fx3A, the pattern plays at 4000 * 2 ^ ((pitch - 64) / 48) bits per second
+     */
+    public int getPitch() {
+        return pitch;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public synchronized void setExecutionMode(ExecutionMode executionMode) {
+        this.useExecutionMode(executionMode);
+    }
+
+    /**
+     * allocate what executionMode needs on first use, not overridable so the constructor can call it
+     */
+    private void useExecutionMode(ExecutionMode executionMode) {
+        Objects.requireNonNull(executionMode, "Empty ExecutionMode!");
+        if (executionMode == ExecutionMode.CACHED && this.decoded == null) {
+            this.decoded = new Instruction[memory.size() >> 1];
+            RomAnalysis.of(rom).prewarm(decoded, memory, profile);
+        }
+        if (executionMode == ExecutionMode.RECOMPILER && this.recompiler == null) {
+            this.recompiler = new Recompiler(memory, profile);
+        }
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Execute up to {@code cycles} instructions on the caller's thread.
+     * Must not be mixed with {@link #start()} on the same instance.
+     * <p>
+     * A program spinning in an idle loop (a jump to itself, or a short loop that only polls the delay timer or the
+     * keys) cannot leave it before the timers tick or a key event is applied, so the rest of the batch is skipped and
+     * counted as executed, see {@link #getIdleCycles()}.
+     *
+     * @return the number of instructions executed or skipped
+     */
+    public int step(int cycles) {
+        if (journal == null) {
+            return this.run(cycles);
+        }
+        int executed = 0;
+        while (executed < cycles) {
+            journal.sync(this.cycles, keyboard);
+            long segment = Math.min(cycles - executed, journal.cyclesUntilNextEvent(this.cycles));
+            executed += this.run((int) segment);
+            if (suspended) {
+                // a recording only applies events at the start of a step, so a replay must not resume before one
+                break;
+            }
+        }
+        return executed;
+    }
+
+    private int run(int cycles) {
+        suspended = false;
+        idle = false;
+        int executed = profiler == null ? this.runUnprofiled(cycles) : this.runProfiled(cycles);
+        if (idle) {
+            // nothing changes before the next timer tick or step, account for the rest of the batch at once
+            idleCycles += cycles - executed;
+            executed = cycles;
+        }
+        this.cycles += executed;
+        return executed;
+    }
+
+    private int runUnprofiled(int cycles) {
+        int executed = 0;
+        switch (executionMode) {
+            case CACHED:
+                while (executed < cycles && !suspended) {
+                    this.cachedCycle();
+                    executed++;
+                }
+                break;
+            case RECOMPILER:
+                while (executed < cycles && !suspended) {
+                    executed += this.recompiledCycle(cycles - executed);
                 }
                 break;
+            default:
+                while (executed < cycles && !suspended) {
+                    this.interpretCycle();
+                    executed++;
+                }
+                break;
+        }
+        return executed;
+    }
+
+    /**
+     * the interpreter loop, counting every instruction
+     */
+    private int runProfiled(int cycles) {
+        Profiler p = this.profiler;
+        int executed = 0;
+        while (executed < cycles && !suspended) {
+            int addr = pc;
+            int op = fetch(addr);
+            Opcode opcode = opcodes[op];
+            p.count(addr, opcode);
+            if (tracing) {
+                trace.record(addr, op);
+            }
+            pc = (addr + 2) & 0xFFF;
+            this.execute(opcode, op, (op & 0x0F00) >> 8, (op & 0x00F0) >> 4, op & 0x0FFF);
+            executed++;
+        }
+        return executed;
+    }
+
+    /**
+     * Execute one 60 Hz frame on the caller's thread: {@link #getCyclesPerFrame()} instructions,
+     * then one tick of the delay and sound timers, then {@link Screen#publishFrame()}.
+     *
+     * @return the number of instructions executed
+     */
+    public int runFrame() {
+        int executed = this.step(cyclesPerFrame);
+        this.tickTimers();
+        this.screen.publishFrame();
+        return executed;
+    }
+
+    private void tickTimers() {
+        if (dt != 0) {
+            dt--;
+        }
+        if (st != 0) {
+            st--;
+        }
+    }
+
+    public int getCyclesPerFrame() {
+        return cyclesPerFrame;
+    }
+
+    public void setCyclesPerFrame(int cyclesPerFrame) {
+        Commons.assertCondition(cyclesPerFrame <= 0, (Supplier<IllegalArgumentException>) () ->
+                new IllegalArgumentException("cyclesPerFrame must be positive"));
+        this.cyclesPerFrame = cyclesPerFrame;
+    }
+
+    public int getDelayTimer() {
+        return dt & 0xFF;
+    }
+
+    public int getSoundTimer() {
+        return st & 0xFF;
+    }
+
+    public long getCycles() {
+        return cycles;
+    }
+
+    public Screen getScreen() {
+        return screen;
+    }
+
+    public Keyboard getKeyboard() {
+        return keyboard;
+    }
+
+    /**
+     * @return true while the program is stopped in Fx0A and no key has been pressed since
+     */
+    public boolean isWaitingForKey() {
+        return keyWait >= 0 && Keyboard.pressCount(keyboard.getState()) == keyWait;
+    }
+
+    /**
+     * @return true if running more frames changes nothing until the next key event: no timer is running and the
+     * program waits in Fx0A or spins in an idle loop. Never true while replaying a journal.
+     */
+    public boolean isWaitingForInput() {
+        if (dt != 0 || st != 0 || journal != null && journal.getMode() == InputJournal.Mode.REPLAY) {
+            return false;
+        }
+        return this.isWaitingForKey() || idle && idleDt == 0 && idleEvents == keyboard.getEventCount();
+    }
+
+    /**
+     * @return instructions skipped in idle loops so far
+     */
+    public long getIdleCycles() {
+        return idleCycles;
+    }
+
+    /**
+     * Idle loop detection is on by default, benchmarks turn it off to measure raw dispatch.
+     */
+    public void setIdleDetection(boolean idleDetection) {
+        this.idleDetection = idleDetection;
+        this.idleJump = -1;
+    }
+
+    /**
+     * Park the calling thread while {@link #isWaitingForInput()}, at most timeoutNanos.
+     */
+    public void awaitInput(long timeoutNanos) {
+        int seen = keyboard.getEventCount();
+        if (this.isWaitingForInput()) {
+            keyboard.awaitEvent(seen, timeoutNanos);
+        }
+    }
+
+    /**
+     * Reset the random generator used by Cxkk, two instances with the same seed and input produce the same output.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Record keyboard input into, or replay it from, a journal. Input is applied at {@link #step(int)} boundaries,
+     * stamped with the cycle count. Pass null to detach.
+     */
+    public void setInputJournal(InputJournal journal) {
+        if (this.journal != null) {
+            this.journal.detach(keyboard);
+        }
+        this.journal = journal;
+        if (journal != null) {
+            journal.attach(this, keyboard);
+        }
+    }
+
+    /**
+     * @return the attached journal, null if none
+     */
+    public InputJournal getInputJournal() {
+        return journal;
+    }
+
+    /**
+     * Count every executed instruction into profiler, null detaches it. While attached the instance runs the
+     * interpreter whatever its execution mode.
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * @return the number of memory pages this instance has copied from its rom
+     */
+    public int getCopiedPages() {
+        return memory.privatePages();
+    }
+
+    private void interpretCycle() {
+        int addr = pc;
+        int op = fetch(addr);
+        if (tracing) {
+            trace.record(addr, op);
+        }
+        pc = (addr + 2) & 0xFFF;
+        this.executeOp(op);
+    }
+
+    private void cachedCycle() {
+        int addr = pc;
+        if ((addr & 1) != 0) {
+            // instructions at odd addresses are rare, they are not cached
+            this.interpretCycle();
+            return;
+        }
+        Instruction in = decoded[addr >> 1];
+        if (in == null) {
+            in = Instruction.decode(fetch(addr), profile);
+            decoded[addr >> 1] = in;
+        }
+        if (tracing) {
+            trace.record(addr, in.op);
+        }
+        pc = (addr + 2) & 0xFFF;
+        this.execute(in.opcode, in.op, in.x, in.y, in.nnn);
+    }
+
+    /**
+     * @return the number of instructions executed, never more than budget
+     */
+    private int recompiledCycle(int budget) {
+        CompiledBlock block = recompiler.lookup(pc);
+        if (block == null || block.length > budget) {
+            this.interpretCycle();
+            return 1;
+        }
+        if (tracing) {
+            trace.record(block);
+        }
+        block.run(this, v);
+        pc = block.end;
+        return block.length;
+    }
+
+    /**
+     * execute op fetched from addr, for compiled blocks, which do not keep pc up to date
+     */
+    void executeAt(int op, int addr) {
+        pc = (addr + 2) & 0xFFF;
+        this.executeOp(op);
+    }
+
+    void executeOp(int op) {
+        this.execute(opcodes[op], op, (op & 0x0F00) >> 8, (op & 0x00F0) >> 4, op & 0x0FFF);
+    }
+
+    void setI(int i) {
+        this.i = i;
+    }
+
+    private int fetch(int addr) {
+        return memory.readWord(addr);
+    }
+
+    /**
+     * drop decoded instructions overlapping memory[addr, addr + length)
+     */
+    private void invalidate(int addr, int length) {
+        if (recompiler != null) {
+            recompiler.invalidate(addr, length);
+        }
+        if (decoded == null) {
+            return;
+        }
+        int last = Math.min(addr + length - 1, memory.size() - 1);
+        for (int a = addr & ~1; a <= last; a += 2) {
+            decoded[a >> 1] = null;
+        }
+    }
+
+    private void execute(Opcode opcode, int op, int x, int y, int nnn) {
+        int kk = nnn & 0xFF;
+        switch (opcode) {
+            /*
+               00E0 - CLS
+               Clear the display.
+             */
+            case CLS:
+                this.screen.clear();
+                break;
+
+            /*
+            00EE - RET
+            Return from a subroutine.
+
+            The interpreter subtracts 1 from the stack pointer, then sets the program counter to the address at the top of the stack.
+             */
+            case RET:
+                if (sp == 0) {
+                    throw new IllegalStateException(this.fault("stack underflow"));
+                }
+                this.branched(x, y);
+                this.pc = this.stack[--sp];
+                idleJump = -1;
+                break;
 
             /*
             1nnn - JP addr
             Jump to location nnn.
              */
-            case 0x1:
-                this.pc = op & 0x0FFF;
+            case JP:
+                this.branched(x, y);
+                this.jump(nnn);
                 break;
 
             /*
             2nnn - CALL addr
             Call subroutine at nnn.
 
-            The interpreter increments the stack pointer, then puts the current PC on the top of the stack. The PC is then set to nnn.
+            The interpreter puts the current PC on the top of the stack, then increments the stack pointer. The PC is then set to nnn.
              */
-            case 0x2:
-                this.stack[++sp] = this.pc;
-                this.pc = op & 0x0FFF;
+            case CALL:
+                if (sp == stack.length) {
+                    throw new IllegalStateException(this.fault("stack overflow"));
+                }
+                this.branched(x, y);
+                this.stack[sp++] = this.pc;
+                this.pc = nnn;
+                idleJump = -1;
                 break;
 
             /*
@@ -176,9 +752,9 @@ public class Chip8 {
 
             The interpreter compares register Vx to kk, and if they are equal, increments the program counter by 2.
              */
-            case 0x3:
-                if (v[x] == (op & 0xFF)) {
-                    pc += 2;
+            case SE_VX_BYTE:
+                if ((v[x] & 0xFF) == kk) {
+                    this.skip(x, y);
                 }
                 break;
 
@@ -188,9 +764,9 @@ public class Chip8 {
 
             The interpreter compares register Vx to kk, and if they are not equal, increments the program counter by 2.
              */
-            case 0x4:
-                if (v[x] != (op & 0xFF)) {
-                    pc += 2;
+            case SNE_VX_BYTE:
+                if ((v[x] & 0xFF) != kk) {
+                    this.skip(x, y);
                 }
                 break;
 
@@ -200,16 +776,9 @@ public class Chip8 {
 
             The interpreter compares register Vx to register Vy, and if they are equal, increments the program counter by 2.
              */
-            case 0x5:
-                switch (op & 0xF) {
-                    case 0:
-                        if (v[x] == v[y]) {
-                            pc += 2;
-                        }
-                        break;
-                    default:
-                        this.unknownOp(op);
-                        break;
+            case SE_VX_VY:
+                if (v[x] == v[y]) {
+                    this.skip(x, y);
                 }
                 break;
 
@@ -219,8 +788,8 @@ public class Chip8 {
 
             The interpreter puts the value kk into register Vx.
              */
-            case 0x6:
-                v[x] = (byte) (op & 0x00FF);
+            case LD_VX_BYTE:
+                v[x] = (byte) kk;
                 break;
 
             /*
@@ -229,122 +798,127 @@ public class Chip8 {
 
             Adds the value kk to the value of register Vx, then stores the result in Vx.
              */
-            case 0x7:
-                v[x] += (byte) (op & 0x00FF);
-                break;
-
-            case 0x8:
-                switch (op & 0xF) {
-                    /*
-                    8xy0 - LD Vx, Vy
-                    Set Vx = Vy.
-
-                    Stores the value of register Vy in register Vx.
-                     */
-                    case 0x0:
-                        v[x] = v[y];
-                        break;
-                    /*
-                    8xy1 - OR Vx, Vy
-                    Set Vx = Vx OR Vy.
-
-                    Performs a bitwise OR on the values of Vx and Vy, then stores the result in Vx. A bitwise OR compares the corrseponding bits from two values, and if either bit is 1, then the same bit in the result is also 1. Otherwise, it is 0.
-                    */
-                    case 0x1:
-                        v[x] |= v[y];
-                        break;
-
-                    /*
-
-                    8xy2 - AND Vx, Vy
-                    Set Vx = Vx AND Vy.
-
-                    Performs a bitwise AND on the values of Vx and Vy, then stores the result in Vx. A bitwise AND compares the corrseponding bits from two values, and if both bits are 1, then the same bit in the result is also 1. Otherwise, it is 0.
-                     */
-                    case 0x2:
-                        v[x] &= v[y];
-                        break;
-                     /*
-                    8xy3 - XOR Vx, Vy
-                    Set Vx = Vx XOR Vy.
-
-                    Performs a bitwise exclusive OR on the values of Vx and Vy, then stores the result in Vx. An exclusive OR compares the corrseponding bits from two values, and if the bits are not both the same, then the corresponding bit in the result is set to 1. Otherwise, it is 0.
-                    */
-                    case 0x3:
-                        v[x] ^= v[y];
-                        break;
-
-                     /*
-
-                    8xy4 - ADD Vx, Vy
-                    Set Vx = Vx + Vy, set VF = carry.
-
-                    The values of Vx and Vy are added together. If the result is greater than 8 bits (i.e., > 255,) VF is set to 1, otherwise 0. Only the lowest 8 bits of the result are kept, and stored in Vx.
-                    */
-                    case 0x4:
-                        int sum = (int) v[x] + v[y];
-                        v[0xf] = (byte) (sum > 255 ? 1 : 0);
-                        v[x] = (byte) (sum & 0xFF);
-                        break;
-
-                    /*
-                    8xy5 - SUB Vx, Vy
-                    Set Vx = Vx - Vy, set VF = NOT borrow.
-
-                    If Vx > Vy, then VF is set to 1, otherwise 0. Then Vy is subtracted from Vx, and the results stored in Vx.
-                    */
-                    case 0x5:
-                        v[0xf] = (byte) (v[x] > v[y] ? 1 : 0);
-                        v[x] -= v[y];
-                        break;
-                    /*
-                    8xy6 - SHR Vx {, Vy}
-                    Set Vx = Vx SHR 1.
-
-                    If the least-significant bit of Vx is 1, then VF is set to 1, otherwise 0. Then Vx is divided by 2.
-                    */
-                    case 0x6:
-                        v[0xf] = (byte) (v[x] & 1);
-                        v[x] >>>= 1;
-                        break;
-                    /*
-                    8xy7 - SUBN Vx, Vy
-                    Set Vx = Vy - Vx, set VF = NOT borrow.
-
-                    If Vy > Vx, then VF is set to 1, otherwise 0. Then Vx is subtracted from Vy, and the results stored in Vx.
-
-                    */
-                    case 0x7:
-                        v[0xf] = (byte) (v[y] > v[x] ? 1 : 0);
-                        v[y] -= v[x];
-                        break;
-
-                    /*
-
-                    8xyE - SHL Vx {, Vy}
-                    Set Vx = Vx SHL 1.
-
-                    If the most-significant bit of Vx is 1, then VF is set to 1, otherwise to 0. Then Vx is multiplied by 2.
-
-                     */
-                    case 0xE:
-                        v[0xf] = (byte) (v[x] & 0x80);
-                        v[x] <<= 1;
-                        break;
-
-                    default:
-                        unknownOp(op);
-                        break;
-                }
+            case ADD_VX_BYTE:
+                v[x] += (byte) kk;
                 break;
+
+            /*
+            8xy0 - LD Vx, Vy
+            Set Vx = Vy.
+
+            Stores the value of register Vy in register Vx.
+             */
+            case LD_VX_VY:
+                v[x] = v[y];
+                break;
+            /*
+            8xy1 - OR Vx, Vy
+            Set Vx = Vx OR Vy.
+
+            Performs a bitwise OR on the values of Vx and Vy, then stores the result in Vx. A bitwise OR compares the corrseponding bits from two values, and if either bit is 1, then the same bit in the result is also 1. Otherwise, it is 0.
+            */
+            case OR:
+                v[x] |= v[y];
+                break;
+
+            /*
+
+            8xy2 - AND Vx, Vy
+            Set Vx = Vx AND Vy.
+
+            Performs a bitwise AND on the values of Vx and Vy, then stores the result in Vx. A bitwise AND compares the corrseponding bits from two values, and if both bits are 1, then the same bit in the result is also 1. Otherwise, it is 0.
+             */
+            case AND:
+                v[x] &= v[y];
+                break;
+             /*
+            8xy3 - XOR Vx, Vy
+            Set Vx = Vx XOR Vy.
+
+            Performs a bitwise exclusive OR on the values of Vx and Vy, then stores the result in Vx. An exclusive OR compares the corrseponding bits from two values, and if the bits are not both the same, then the corresponding bit in the result is set to 1. Otherwise, it is 0.
+            */
+            case XOR:
+                v[x] ^= v[y];
+                break;
+
+             /*
+
+            8xy4 - ADD Vx, Vy
+            Set Vx = Vx + Vy, set VF = carry.
+
+            The values of Vx and Vy are added together. If the result is greater than 8 bits (i.e., > 255,) VF is set to 1, otherwise 0. Only the lowest 8 bits of the result are kept, and stored in Vx.
+            */
+            case ADD_VX_VY: {
+                int sum = (v[x] & 0xFF) + (v[y] & 0xFF);
+                v[x] = (byte) sum;
+                v[0xF] = (byte) (sum >> 8);
+                break;
+            }
+
+            /*
+            8xy5 - SUB Vx, Vy
+            Set Vx = Vx - Vy, set VF = NOT borrow.
+
+            If Vx > Vy, then VF is set to 1, otherwise 0. Then Vy is subtracted from Vx, and the results stored in Vx.
+            */
+            case SUB: {
+                int vx = v[x] & 0xFF;
+                int vy = v[y] & 0xFF;
+                v[x] = (byte) (vx - vy);
+                v[0xF] = (byte) (vx >= vy ? 1 : 0);
+                break;
+            }
+            /*
+            8xy6 - SHR Vx {, Vy}
+            Set Vx = Vx SHR 1.
+
+            If the least-significant bit of Vx is 1, then VF is set to 1, otherwise 0. Then Vx is divided by 2.
+            */
+            case SHR: {
+                int vx = v[x] & 0xFF;
+                v[x] = (byte) (vx >>> 1);
+                v[0xF] = (byte) (vx & 1);
+                break;
+            }
+            /*
+            8xy7 - SUBN Vx, Vy
+            Set Vx = Vy - Vx, set VF = NOT borrow.
+
+            If Vy > Vx, then VF is set to 1, otherwise 0. Then Vx is subtracted from Vy, and the results stored in Vx.
+
+            */
+            case SUBN: {
+                int vx = v[x] & 0xFF;
+                int vy = v[y] & 0xFF;
+                v[x] = (byte) (vy - vx);
+                v[0xF] = (byte) (vy >= vx ? 1 : 0);
+                break;
+            }
+
+            /*
+
+            8xyE - SHL Vx {, Vy}
+            Set Vx = Vx SHL 1.
+
+            If the most-significant bit of Vx is 1, then VF is set to 1, otherwise to 0. Then Vx is multiplied by 2.
+
+             */
+            case SHL: {
+                int vx = v[x] & 0xFF;
+                v[x] = (byte) (vx << 1);
+                v[0xF] = (byte) (vx >>> 7);
+                break;
+            }
             /*
             9xy0 - SNE Vx, Vy
             Skip next instruction if Vx != Vy.
 
             The values of Vx and Vy are compared, and if they are not equal, the program counter is increased by 2.
              */
-            case 0x9:
-                pc += (v[x] != v[y]) ? 2 : 0;
+            case SNE_VX_VY:
+                if (v[x] != v[y]) {
+                    this.skip(x, y);
+                }
                 break;
             /*
             Annn - LD I, addr
@@ -352,8 +926,8 @@ public class Chip8 {
 
             The value of register I is set to nnn.
              */
-            case 0xA:
-                i = op & 0x0FFF;
+            case LD_I:
+                i = nnn;
                 break;
             /*
             Bnnn - JP V0, addr
@@ -361,8 +935,10 @@ public class Chip8 {
 
             The program counter is set to nnn plus the value of V0.
             */
-            case 0xB:
-                pc = op & 0x0FFF + v[0];
+            case JP_V0:
+                this.branched(x, y);
+                pc = (nnn + (v[0] & 0xFF)) & 0xFFF;
+                idleJump = -1;
                 break;
             /*
             Cxkk - RND Vx, byte
@@ -370,8 +946,8 @@ public class Chip8 {
 
             The interpreter generates a random number from 0 to 255, which is then ANDed with the value kk. The results are stored in Vx. See instruction 8xy2 for more information on AND.
              */
-            case 0xC:
-                v[x] = (byte) (random(0xFF) & 0x00FF);
+            case RND:
+                v[x] = (byte) (randomByte() & kk);
                 break;
              /*
              Dxyn - DRW Vx, Vy, nibble
@@ -384,160 +960,471 @@ public class Chip8 {
              If the sprite is positioned so part of it is outside the coordinates of the display, it wraps around to the opposite side of the screen.
              See instruction 8xy3 for more information on XOR, and section 2.4, Display, for more information on the Chip-8 screen and sprites.
               */
-            case 0xD:
+            case DRW: {
                 int n = op & 0xF;
-                v[0xF] = 0;
+                int vx = v[x] & 0xFF;
+                int vy = v[y] & 0xFF;
+                boolean collision = false;
                 for (int j = 0; j < n; j++) {
-                    if (screen.xorPixels(v[x], v[y] + j, memory[i + j])) {
-                        v[0xF] = 1;
-                    }
+                    collision |= screen.xorPixels(vx, vy + j, memory.read((i + j) & 0xFFF));
                 }
+                v[0xF] = (byte) (collision ? 1 : 0);
+                break;
+            }
+            /*
+            Ex9E - SKP Vx
+            Skip next instruction if key with the value of Vx is pressed.
 
+            Checks the keyboard, and if the key corresponding to the value of Vx is currently in the down position, PC is increased by 2.
+             */
+            case SKP:
+                if (keyboard.isPressed(v[x] & 0xF)) {
+                    this.skip(x, y);
+                }
                 break;
-            case 0xE:
-                switch (op & 0x00FF) {
-                    /*
-                    Ex9E - SKP Vx
-                    Skip next instruction if key with the value of Vx is pressed.
-
-                    Checks the keyboard, and if the key corresponding to the value of Vx is currently in the down position, PC is increased by 2.
-                     */
-                    case 0x9E:
-                        if (keyboard.getCurrentKeyPressed() == v[x]) {
-                            pc += 2;
-                        }
-                        break;
-
-                    /*
-                    ExA1 - SKNP Vx
-                    Skip next instruction if key with the value of Vx is not pressed.
-
-                    Checks the keyboard, and if the key corresponding to the value of Vx is currently in the up position, PC is increased by 2.
-                     */
-                    case 0xA1:
-                        if (keyboard.getCurrentKeyPressed() != v[x]) {
-                            pc += 2;
-                        }
-                        break;
-                    default:
-                        this.unknownOp(op);
-                        break;
+
+            /*
+            ExA1 - SKNP Vx
+            Skip next instruction if key with the value of Vx is not pressed.
+
+            Checks the keyboard, and if the key corresponding to the value of Vx is currently in the up position, PC is increased by 2.
+             */
+            case SKNP:
+                if (!keyboard.isPressed(v[x] & 0xF)) {
+                    this.skip(x, y);
                 }
                 break;
-            case 0xF:
-                switch (op & 0x00FF) {
-                    /*
-                    Fx07 - LD Vx, DT
-                    Set Vx = delay timer value.
-
-                    The value of DT is placed into Vx.
-                     */
-                    case 0x07:
-                        v[x] = dt;
-                        break;
-                    /*
-                    Fx0A - LD Vx, K
-                    Wait for a key press, store the value of the key in Vx.
-
-                    All execution stops until a key is pressed, then the value of that key is stored in Vx.
-                     */
-                    case 0x0A:
-                        v[x] = (byte) keyboard.waitForKey();
-                        break;
-                    /*
-                    Fx15 - LD DT, Vx
-                    Set delay timer = Vx.
-
-                    DT is set equal to the value of Vx.
-                     */
-                    case 0x15:
-                        dt = v[x];
-                        break;
-                    /*
-                    Fx18 - LD ST, Vx
-                    Set sound timer = Vx.
-
-                    ST is set equal to the value of Vx.
-                     */
-                    case 0x18:
-                        st = v[x];
-                        break;
-                    /*
-                    Fx1E - ADD I, Vx
-                    Set I = I + Vx.
-
-                    The values of I and Vx are added, and the results are stored in I.
-                     */
-                    case 0x1E:
-                        i = i + v[x];
-                        break;
-                    /*
-                    Fx29 - LD F, Vx
-                    Set I = location of sprite for digit Vx.
-
-                    The value of I is set to the location for the hexadecimal sprite corresponding to the value of Vx.
-                    See section 2.4, Display, for more information on the Chip-8 hexadecimal font.
-                     */
-                    case 0x29:
-                        i = v[x] * 5;
-                        break;
-
-                    /*
-                    Fx33 - LD B, Vx
-                    Store BCD representation of Vx in memory locations I, I+1, and I+2.
-
-                    The interpreter takes the decimal value of Vx, and places the hundreds digit in memory at location in I,
-                    the tens digit at location I+1, and the ones digit at location I+2.
-                    */
-
-                    case 0x33:
-                        memory[i] = (byte) (v[x] / 100);
-                        memory[i + 1] = (byte) (v[x] % 100 / 10);
-                        memory[i + 2] = (byte) (v[x] % 10);
-                        return;
-
-                    /*
-                    Fx55 - LD [I], Vx
-                    Store registers V0 through Vx in memory starting at location I.
-
-                    The interpreter copies the values of registers V0 through Vx into memory, starting at the address in I.
-                    */
-                    case 0x55:
-                        System.arraycopy(v, 0, memory, i, 0xF);
-                        break;
-
-                    /*
-                    Fx65 - LD Vx, [I]
-                    Read registers V0 through Vx from memory starting at location I.
-
-                    The interpreter reads values from memory starting at location I into registers V0 through Vx.
-                     */
-                    case 0x65:
-                        System.arraycopy(memory, i, v, 0, 0xF);
-                        break;
-
-                    default:
-                        this.unknownOp(op);
-                        break;
+            /*
+            Fx07 - LD Vx, DT
+            Set Vx = delay timer value.
+
+            The value of DT is placed into Vx.
+             */
+            case LD_VX_DT:
+                v[x] = dt;
+                break;
+            /*
+            Fx0A - LD Vx, K
+            Wait for a key press, store the value of the key in Vx.
+
+            All execution stops until a key is pressed, then the value of that key is stored in Vx.
+             */
+            case LD_VX_K: {
+                int state = keyboard.getState();
+                if (keyWait < 0) {
+                    keyWait = Keyboard.pressCount(state);
                 }
+                if (Keyboard.pressCount(state) != keyWait) {
+                    v[x] = (byte) Keyboard.lastPressed(state);
+                    keyWait = -1;
+                } else {
+                    // run this instruction again next time, the runner can park until a key event
+                    pc = (pc - 2) & 0xFFF;
+                    suspended = true;
+                }
+                break;
+            }
+            /*
+            Fx15 - LD DT, Vx
+            Set delay timer = Vx.
+
+            DT is set equal to the value of Vx.
+             */
+            case LD_DT_VX:
+                dt = v[x];
+                break;
+            /*
+            Fx18 - LD ST, Vx
+            Set sound timer = Vx.
 
+            ST is set equal to the value of Vx.
+             */
+            case LD_ST_VX:
+                st = v[x];
+                break;
+            /*
+            Fx1E - ADD I, Vx
+            Set I = I + Vx.
+
+            The values of I and Vx are added, and the results are stored in I.
+             */
+            case ADD_I_VX:
+                i = (i + (v[x] & 0xFF)) & addressMask;
+                break;
+            /*
+            Fx29 - LD F, Vx
+            Set I = location of sprite for digit Vx.
+
+            The value of I is set to the location for the hexadecimal sprite corresponding to the value of Vx.
+            See section 2.4, Display, for more information on the Chip-8 hexadecimal font.
+             */
+            case LD_F_VX:
+                i = (v[x] & 0xF) * 5;
+                break;
+
+            /*
+            Fx33 - LD B, Vx
+            Store BCD representation of Vx in memory locations I, I+1, and I+2.
+
+            The interpreter takes the decimal value of Vx, and places the hundreds digit in memory at location in I,
+            the tens digit at location I+1, and the ones digit at location I+2.
+            */
+            case LD_B_VX: {
+                this.checkRange(3);
+                int vx = v[x] & 0xFF;
+                memory.write(i, (byte) (vx / 100));
+                memory.write(i + 1, (byte) (vx % 100 / 10));
+                memory.write(i + 2, (byte) (vx % 10));
+                this.invalidate(i, 3);
                 break;
+            }
 
+            /*
+            Fx55 - LD [I], Vx
+            Store registers V0 through Vx in memory starting at location I.
+
+            The interpreter copies the values of registers V0 through Vx into memory, starting at the address in I.
+            */
+            case LD_I_VX:
+                this.checkRange(x + 1);
+                memory.write(i, v, 0, x + 1);
+                this.invalidate(i, x + 1);
+                break;
+
+            /*
+            Fx65 - LD Vx, [I]
+            Read registers V0 through Vx from memory starting at location I.
+
+            The interpreter reads values from memory starting at location I into registers V0 through Vx.
+             */
+            case LD_VX_I:
+                this.checkRange(x + 1);
+                memory.read(i, v, 0, x + 1);
+                break;
+
+            default:
+                this.executeVariant(opcode, op, x, y, nnn);
+                break;
+
+        }
+    }
+
+    /**
+     * the variants {@link CompatibilityProfile} substitutes, kept out of {@link #execute} so the standard dispatch
+     * stays as small as it was
+     */
+    private void executeVariant(Opcode opcode, int op, int x, int y, int nnn) {
+        switch (opcode) {
+            case OR_VF:
+                v[x] |= v[y];
+                v[0xF] = 0;
+                break;
+
+            case AND_VF:
+                v[x] &= v[y];
+                v[0xF] = 0;
+                break;
+
+            case XOR_VF:
+                v[x] ^= v[y];
+                v[0xF] = 0;
+                break;
+
+            case SHR_VY: {
+                int vy = v[y] & 0xFF;
+                v[x] = (byte) (vy >>> 1);
+                v[0xF] = (byte) (vy & 1);
+                break;
+            }
+
+            case SHL_VY: {
+                int vy = v[y] & 0xFF;
+                v[x] = (byte) (vy << 1);
+                v[0xF] = (byte) (vy >>> 7);
+                break;
+            }
+
+            case JP_VX:
+                this.branched(x, y);
+                pc = (nnn + (v[x] & 0xFF)) & 0xFFF;
+                idleJump = -1;
+                break;
+
+            case DRW_CLIP: {
+                // the start wraps, the pixels past the right and bottom edges are dropped
+                int n = op & 0xF;
+                int vx = v[x] & (Screen.WIDTH - 1);
+                int vy = v[y] & (Screen.HIGH - 1);
+                int mask = vx > Screen.WIDTH - 8 ? 0xFF << (vx - (Screen.WIDTH - 8)) : 0xFF;
+                int rows = Math.min(n, Screen.HIGH - vy);
+                boolean collision = false;
+                for (int j = 0; j < rows; j++) {
+                    collision |= screen.xorPixels(vx, vy + j, (byte) (memory.read((i + j) & 0xFFF) & mask));
+                }
+                v[0xF] = (byte) (collision ? 1 : 0);
+                break;
+            }
+
+            case LD_I_VX_INC:
+                this.checkRange(x + 1);
+                memory.write(i, v, 0, x + 1);
+                this.invalidate(i, x + 1);
+                i = (i + x + 1) & addressMask;
+                break;
+
+            case LD_VX_I_INC:
+                this.checkRange(x + 1);
+                memory.read(i, v, 0, x + 1);
+                i = (i + x + 1) & addressMask;
+                break;
+
+            case DRW_EXT:
+                this.drawExtended(op, x, y, false);
+                break;
+
+            case DRW_EXT_CLIP:
+                this.drawExtended(op, x, y, true);
+                break;
+
+            /*
+            SUPER-CHIP and XO-CHIP instructions, only decoded on those machines.
+             */
+            case SCD:
+                extended.scrollDown(op & 0xF);
+                break;
+
+            case SCU:
+                extended.scrollUp(op & 0xF);
+                break;
+
+            case SCR:
+                extended.scrollRight();
+                break;
+
+            case SCL:
+                extended.scrollLeft();
+                break;
+
+            case EXIT:
+                // the program is over, stay on this instruction
+                pc = (pc - 2) & 0xFFF;
+                suspended = true;
+                break;
+
+            case LOW:
+                extended.setHires(false);
+                break;
+
+            case HIGH:
+                extended.setHires(true);
+                break;
+
+            case SAVE:
+            case LOAD: {
+                // Vx to Vy, downwards if x > y
+                int n = Math.abs(x - y) + 1;
+                int step = x <= y ? 1 : -1;
+                this.checkRange(n);
+                for (int k = 0; k < n; k++) {
+                    if (opcode == Opcode.SAVE) {
+                        memory.write(i + k, v[x + k * step]);
+                    } else {
+                        v[x + k * step] = memory.read(i + k);
+                    }
+                }
+                if (opcode == Opcode.SAVE) {
+                    this.invalidate(i, n);
+                }
+                break;
+            }
+
+            case LD_I_LONG:
+                i = fetch(pc);
+                pc = (pc + 2) & 0xFFF;
+                break;
+
+            case PLANE:
+                extended.selectPlanes(x);
+                break;
+
+            case AUDIO:
+                this.checkRange(audioPattern.length);
+                memory.read(i, audioPattern, 0, audioPattern.length);
+                break;
+
+            case LD_HF_VX:
+                i = Rom.BIG_FONT_ADDRESS + (v[x] & 0xF) * 10;
+                break;
+
+            case LD_PITCH_VX:
+                pitch = v[x] & 0xFF;
+                break;
+
+            case LD_R_VX:
+                System.arraycopy(v, 0, rpl, 0, x + 1);
+                break;
+
+            case LD_VX_R:
+                System.arraycopy(rpl, 0, v, 0, x + 1);
+                break;
 
             default:
                 // unknown operator
                 this.unknownOp(op);
                 break;
+        }
+    }
+
+    /**
+     * skip the next instruction, both words of it if it is an XO-CHIP F000 nnnn
+     */
+    private void skip(int x, int y) {
+        this.branched(x, y);
+        int to = longInstructions && fetch(pc) == 0xF000 ? pc + 4 : pc + 2;
+        pc = to & 0xFFF;
+    }
+
+    /**
+     * add the registers the branch being executed saw to its trace entry
+     */
+    private void branched(int x, int y) {
+        if (tracing) {
+            trace.registers(i, v[x], v[y]);
+        }
+    }
+
+    /**
+     * Dxyn on an {@link ExtendedScreen}: n rows of 8 pixels, or 16 rows of 16 pixels if n is 0, for each selected
+     * plane
+     */
+    private void drawExtended(int op, int x, int y, boolean clip) {
+        int n = op & 0xF;
+        int width = n == 0 ? 16 : 8;
+        int height = n == 0 ? 16 : n;
+        int length = Integer.bitCount(extended.getPlaneMask()) * height * (width >>> 3);
+        for (int j = 0; j < length; j++) {
+            sprite[j] = memory.read((i + j) & addressMask);
+        }
+        boolean collision = extended.draw(v[x] & 0xFF, v[y] & 0xFF, sprite, height, width, clip);
+        v[0xF] = (byte) (collision ? 1 : 0);
+    }
+
+    /**
+     * 1nnn. A short backward jump over an idle loop body arms the detection with the registers and I. Reaching the
+     * same jump again with all of them unchanged means a whole pass of the body changed nothing, so it will keep
+     * taking the same path until the timers or the keys change. A pass that did change them, e.g. the first one
+     * after entering the loop in the middle, arms again.
+     */
+    private void jump(int nnn) {
+        int at = (pc - 2) & 0xFFF;
+        pc = nnn;
+        if (!idleDetection || nnn > at || at - nnn > IDLE_LOOP_BYTES) {
+            idleJump = -1;
+        } else if (idleJump == at && idleI == i && Arrays.equals(idleV, v)) {
+            idle = true;
+            suspended = true;
+            idleDt = dt;
+            idleEvents = keyboard.getEventCount();
+        } else if (this.isIdleLoop(nnn, at)) {
+            idleJump = at;
+            idleI = i;
+            System.arraycopy(v, 0, idleV, 0, v.length);
+        } else {
+            idleJump = -1;
+        }
+    }
 
+    /**
+     * @return true if every instruction in [start, jump) only tests registers, the keys, or loads a register
+     * from a constant or the delay timer, so a pass depends on nothing but the registers, the timers and the keys
+     */
+    private boolean isIdleLoop(int start, int jump) {
+        if (((jump - start) & 1) != 0) {
+            return false;
         }
+        for (int addr = start; addr < jump; addr += 2) {
+            switch (Opcode.decode(fetch(addr))) {
+                case SE_VX_BYTE:
+                case SNE_VX_BYTE:
+                case SE_VX_VY:
+                case SNE_VX_VY:
+                case LD_VX_BYTE:
+                case LD_VX_DT:
+                case SKP:
+                case SKNP:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
     }
 
-    private byte random(int i) {
-        return (byte) (Math.random() * i);
+    /**
+     * SplitMix64, per instance so runs are reproducible and instances never contend on a shared generator
+     */
+    private int randomByte() {
+        long z = (seed += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31)) & 0xFF;
     }
 
     private void unknownOp(int op) {
+        this.fault(String.format("unknown instruction %04X", op));
+    }
+
+    private void checkRange(int length) {
+        if (i + length > memory.size()) {
+            throw new IllegalStateException(this.fault(String.format("memory access [%03X, %X) out of range", i,
+                                                                     i + length)));
+        }
+    }
+
+    /**
+     * Log a fault with the registers, and the instructions leading to it if tracing is on. Only the first fault of an instance is a warning, a rom gone
+     * astray tends to hit the same one over and over.
+     *
+     * @return the message
+     */
+    private String fault(String what) {
+        String message = String.format("%s at %03X, I=%03X SP=%d", what, (pc - 2) & 0xFFF, i, sp);
+        Level level = faults++ == 0 ? Level.WARNING : Level.FINE;
+        if (LOGGER.isLoggable(level)) {
+            String registers = HexFormat.of().withUpperCase().formatHex(v);
+            LOGGER.log(level, tracing
+                              ? String.format("%s, V=%s, last instructions:%n%s", message, registers, this.dumpTrace())
+                              : String.format("%s, V=%s", message, registers));
+        }
+        return message;
+    }
+
+    /**
+     * @return the last instructions executed, oldest first, one per line with the opcode word as it was executed.
+     * Only taken branches show registers: I, Vx and Vy as the branch saw them. The same in every
+     * {@link ExecutionMode}, empty while tracing is off.
+     */
+    public String dumpTrace() {
+        return trace.dump(profile);
+    }
+
+    /**
+     * Record every executed instruction for {@link #dumpTrace()} and fault logs. Off by default, it costs up to 20% of
+     * the instructions per second in every mode, see TraceBenchmark.
+     */
+    public void setTracing(boolean tracing) {
+        if (!tracing) {
+            trace.clear();
+        }
+        this.tracing = tracing;
+    }
 
+
+    /**
+     * @return the number of faults so far: unknown instructions, stack over/underflow, memory accesses out of range
+     */
+    public int getFaults() {
+        return faults;
     }
 
 
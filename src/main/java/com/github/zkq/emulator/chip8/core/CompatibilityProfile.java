@@ -0,0 +1,140 @@
+package com.github.zkq.emulator.chip8.core;
+
+/**
+ * Date:2026/10/18 22:00
+ * <p>
+ * The behaviour CHIP-8 interpreters disagree on, chosen once per {@link Chip8}.
+ * <p>
+ * A profile is a table from the opcodes {@link Opcode#decode} returns to the variant this profile executes for them.
+ * It is applied when an instruction is decoded, so the cached and recompiled modes pay nothing per cycle. The
+ * interpreter looks every word up in {@link #decoder()}, decoding and mapping in one array load. The {@link Machine} of a profile decides which instructions exist, the memory size and
+ * the display.
+ *
+ * @author agent
+ */
+public enum CompatibilityProfile {
+    /**
+     * what this emulator always did: shifts on Vx, Fx55/Fx65 leave I alone, Bnnn adds V0, sprites wrap, logic ops
+     * leave VF alone
+     */
+    DEFAULT(Machine.CHIP_8),
+    /**
+     * the original COSMAC VIP interpreter: shifts on Vy, Fx55/Fx65 advance I, logic ops clear VF, sprites clip
+     */
+    COSMAC_VIP(Machine.CHIP_8, Opcode.SHR_VY, Opcode.SHL_VY, Opcode.LD_I_VX_INC, Opcode.LD_VX_I_INC, Opcode.OR_VF,
+               Opcode.AND_VF, Opcode.XOR_VF, Opcode.DRW_CLIP),
+    /**
+     * SUPER-CHIP 1.1: Bxnn adds Vx, sprites clip
+     */
+    SUPER_CHIP(Machine.SUPER_CHIP, Opcode.JP_VX, Opcode.DRW_EXT_CLIP),
+    /**
+     * XO-CHIP: shifts on Vy, Fx55/Fx65 advance I, sprites wrap
+     */
+    XO_CHIP(Machine.XO_CHIP, Opcode.SHR_VY, Opcode.SHL_VY, Opcode.LD_I_VX_INC, Opcode.LD_VX_I_INC, Opcode.DRW_EXT);
+
+    private final Machine machine;
+    private final Opcode[] table;
+    /**
+     * built on first use, a race only builds it twice
+     */
+    private volatile Opcode[] decoder;
+
+    CompatibilityProfile(Machine machine, Opcode... variants) {
+        this.machine = machine;
+        this.table = Opcode.values();
+        for (Opcode opcode : table) {
+            if (!machine.decodes(opcode)) {
+                table[opcode.ordinal()] = Opcode.UNKNOWN;
+            }
+        }
+        for (Opcode variant : variants) {
+            table[variant.standard().ordinal()] = variant;
+        }
+    }
+
+    public Machine getMachine() {
+        return machine;
+    }
+
+    /**
+     * @return the opcode this profile executes for opcode
+     */
+    Opcode map(Opcode opcode) {
+        return table[opcode.ordinal()];
+    }
+
+    /**
+     * @return the opcode this profile executes for every instruction word, indexed by the word. Shared, read only.
+     */
+    Opcode[] decoder() {
+        Opcode[] d = decoder;
+        if (d == null) {
+            d = new Opcode[0x10000];
+            for (int op = 0; op < d.length; op++) {
+                d[op] = this.map(Opcode.decode(op));
+            }
+            decoder = d;
+        }
+        return d;
+    }
+
+    /**
+     * The instruction set, memory and display a profile runs on.
+     */
+    public enum Machine {
+        /**
+         * 4 KB, 64x32 {@link Screen}
+         */
+        CHIP_8(0x1000),
+        /**
+         * 4 KB, 128x64 {@link ExtendedScreen}, scrolling, 16x16 sprites, big font, RPL flags
+         */
+        SUPER_CHIP(0x1000),
+        /**
+         * 64 KB, two bitplanes, F000 nnnn, register ranges, audio pattern and pitch
+         */
+        XO_CHIP(0x10000);
+
+        private final int memorySize;
+
+        Machine(int memorySize) {
+            this.memorySize = memorySize;
+        }
+
+        public int getMemorySize() {
+            return memorySize;
+        }
+
+        /**
+         * @return a screen this machine can draw on
+         */
+        public Screen createScreen() {
+            return this == CHIP_8 ? new Screen() : new ExtendedScreen();
+        }
+
+        boolean decodes(Opcode opcode) {
+            switch (opcode) {
+                case SCD:
+                case SCR:
+                case SCL:
+                case EXIT:
+                case LOW:
+                case HIGH:
+                case LD_HF_VX:
+                case LD_R_VX:
+                case LD_VX_R:
+                    return this != CHIP_8;
+                case SCU:
+                case SAVE:
+                case LOAD:
+                case LD_I_LONG:
+                case PLANE:
+                case AUDIO:
+                case LD_PITCH_VX:
+                    return this == XO_CHIP;
+                default:
+                    return true;
+            }
+        }
+    }
+}
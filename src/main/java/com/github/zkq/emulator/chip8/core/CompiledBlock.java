@@ -0,0 +1,54 @@
+package com.github.zkq.emulator.chip8.core;
+
+/**
+ * Date:2026/10/18 10:05
+ * <p>
+ * Base class of the basic blocks generated by {@link Recompiler}. Generated classes are hidden classes of this
+ * package, so neither they nor this class are visible outside it, and everything they need from {@link Chip8} goes
+ * through the static helpers here.
+ *
+ * @author agent
+ */
+abstract class CompiledBlock {
+    /**
+     * address of the first instruction
+     */
+    final int start;
+    /**
+     * address right after the last instruction
+     */
+    final int end;
+    /**
+     * number of instructions
+     */
+    final int length;
+    /**
+     * the instruction words compiled, a block is dropped before any of them is overwritten
+     */
+    final int[] ops;
+
+    CompiledBlock(int start, int end, int[] ops) {
+        this.start = start;
+        this.end = end;
+        this.length = ops.length;
+        this.ops = ops;
+    }
+
+    abstract void run(Chip8 c, byte[] v);
+
+    /**
+     * execute the instruction op found at addr
+     */
+    static void exec(Chip8 c, int op, int addr) {
+        c.executeAt(op, addr);
+    }
+
+    static void setI(Chip8 c, int nnn) {
+        c.setI(nnn);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("block[%03X, %03X) %d ops", start, end, length);
+    }
+}
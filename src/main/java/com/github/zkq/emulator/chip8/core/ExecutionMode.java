@@ -0,0 +1,21 @@
+package com.github.zkq.emulator.chip8.core;
+
+/**
+ * Date:2026/10/18 9:24
+ *
+ * @author agent
+ */
+public enum ExecutionMode {
+    /**
+     * fetch and decode every instruction on every cycle
+     */
+    INTERPRETER,
+    /**
+     * decode each address once, keep the decoded instruction until the code is overwritten
+     */
+    CACHED,
+    /**
+     * compile hot basic blocks to JVM classes, interpret cold code
+     */
+    RECOMPILER
+}
@@ -0,0 +1,98 @@
+package com.github.zkq.emulator.chip8.core;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Date:2026/10/18 21:00
+ * <p>
+ * The last {@link #CAPACITY} instructions an instance executed, kept to explain a fault after the fact.
+ * <p>
+ * Each entry is one long holding the address and the opcode word as it was executed, so a dump never reads memory a
+ * program may have rewritten since. Recording an instruction is that single store, the registers are only added to
+ * the entries of taken branches: I, Vx and Vy as the branch saw them. A compiled block takes one entry for all its
+ * instructions, the block keeps the words it was compiled from. Blocks never contain branches, so every mode leaves
+ * the same trace.
+ *
+ * @author agent
+ */
+final class ExecutionTrace {
+
+    static final int CAPACITY = 128;
+    private static final int MASK = CAPACITY - 1;
+    /**
+     * set on entries standing for a whole compiled block
+     */
+    private static final long BLOCK = 1L << 63;
+    /**
+     * set on entries carrying I, Vx and Vy in their low 32 bits
+     */
+    private static final long REGISTERS = 1L << 62;
+
+    private final long[] entries = new long[CAPACITY];
+    /**
+     * the block of each BLOCK entry, allocated on the first one
+     */
+    private CompiledBlock[] blocks;
+    private int count;
+
+    void record(int addr, int op) {
+        entries[count++ & MASK] = (long) addr << 48 | (long) op << 32;
+    }
+
+    void record(CompiledBlock block) {
+        if (blocks == null) {
+            blocks = new CompiledBlock[CAPACITY];
+        }
+        blocks[count & MASK] = block;
+        entries[count++ & MASK] = (long) block.start << 48 | (long) block.ops[0] << 32 | BLOCK;
+    }
+
+    /**
+     * add the registers to the last instruction recorded, a branch that was taken
+     */
+    void registers(int i, byte vx, byte vy) {
+        if (count != 0) {
+            entries[(count - 1) & MASK] |= REGISTERS | (long) i << 16 | (vx & 0xFF) << 8 | vy & 0xFF;
+        }
+    }
+
+    void clear() {
+        count = 0;
+        if (blocks != null) {
+            Arrays.fill(blocks, null);
+        }
+    }
+
+    /**
+     * @return one decoded line per instruction, oldest first, at most {@link #CAPACITY}
+     */
+    String dump(CompatibilityProfile profile) {
+        ArrayDeque<String> lines = new ArrayDeque<>(CAPACITY);
+        int n = Math.min(count, CAPACITY);
+        for (int k = count - n; k != count; k++) {
+            long e = entries[k & MASK];
+            int addr = (int) (e >>> 48) & 0xFFF;
+            int op = (int) (e >>> 32) & 0xFFFF;
+            if ((e & REGISTERS) != 0) {
+                lines.add(String.format("  %03X  %-20s I=%03X Vx=%02X Vy=%02X%n", addr,
+                                        Instruction.decode(op, profile), (int) (e >>> 16) & 0xFFFF,
+                                        (int) (e >>> 8) & 0xFF, (int) e & 0xFF));
+            } else {
+                lines.add(String.format("  %03X  %s%n", addr, Instruction.decode(op, profile)));
+            }
+            if ((e & BLOCK) != 0) {
+                CompiledBlock block = blocks[k & MASK];
+                for (int j = 1; j < block.length; j++) {
+                    lines.add(String.format("  %03X  %s%n", (block.start + 2 * j) & 0xFFF,
+                                            Instruction.decode(block.ops[j], profile)));
+                }
+            }
+        }
+        // blocks may have brought in more than fit
+        while (lines.size() > CAPACITY) {
+            lines.removeFirst();
+        }
+        return String.join("", lines);
+    }
+}
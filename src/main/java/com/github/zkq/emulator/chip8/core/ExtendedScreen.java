@@ -0,0 +1,313 @@
+package com.github.zkq.emulator.chip8.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Date:2026/10/18 22:40
+ * <p>
+ * The SUPER-CHIP and XO-CHIP display: 64x32 or 128x64 pixels, two bitplanes.
+ * <p>
+ * Each plane keeps two longs per row whatever the mode, bit 63 of the first one is the leftmost pixel. The low
+ * resolution mode only uses the first long of the first 32 rows. A sprite row is shifted into place across the two
+ * words of a row, scrolling moves whole rows with one array copy per plane, so no operation walks single pixels.
+ * <p>
+ * The 64x32 row view of {@link Screen} ({@link #getRow(int)}, {@link #copyRows(long[])} and the dirty masks given to
+ * listeners) shows both planes ORed, halved in each direction in high resolution. {@link #getRow(int, int, int)}
+ * gives the full resolution.
+ *
+ * @author agent
+ */
+public class ExtendedScreen extends Screen {
+
+    public static final int MAX_WIDTH = 128;
+    public static final int MAX_HIGH = 64;
+    public static final int PLANES = 2;
+    /**
+     * longs per row
+     */
+    private static final int WORDS = 2;
+    /**
+     * odd bits, the left pixel of every pair
+     */
+    private static final long LEFT_PIXELS = 0xAAAAAAAAAAAAAAAAL;
+
+    private final long[][] planes = new long[PLANES][MAX_HIGH * WORDS];
+    private boolean hires;
+    /**
+     * bit p set if drawing, clearing and scrolling affect plane p
+     */
+    private int planeMask = 1;
+
+    public boolean isHires() {
+        return hires;
+    }
+
+    @Override
+    public int getWidth() {
+        return hires ? MAX_WIDTH : WIDTH;
+    }
+
+    @Override
+    public int getHeight() {
+        return hires ? MAX_HIGH : HIGH;
+    }
+
+    public int getPlaneMask() {
+        return planeMask;
+    }
+
+    /**
+     * @return the packed pixels of row y of plane, columns 64 * word to 64 * word + 63, bit 63 is the leftmost
+     */
+    public long getRow(int plane, int y, int word) {
+        return planes[plane][y * WORDS + word];
+    }
+
+    /**
+     * @return bit p set if pixel (x, y) is set in plane p
+     */
+    public int getColor(int x, int y) {
+        int at = y * WORDS + (x >>> 6);
+        int shift = x & 63;
+        return (int) ((planes[0][at] << shift) >>> 63 | (planes[1][at] << shift) >>> 63 << 1);
+    }
+
+    @Override
+    public boolean getPixel(int x, int y) {
+        return this.getColor(x, y) != 0;
+    }
+
+    @Override
+    public long getRow(int y) {
+        if (!hires) {
+            return planes[0][y * WORDS] | planes[1][y * WORDS];
+        }
+        int top = 2 * y * WORDS;
+        int bottom = top + WORDS;
+        long left = planes[0][top] | planes[0][bottom] | planes[1][top] | planes[1][bottom];
+        long right = planes[0][top + 1] | planes[0][bottom + 1] | planes[1][top + 1] | planes[1][bottom + 1];
+        return halve(left) << 32 | halve(right);
+    }
+
+    @Override
+    public void copyRows(long[] dst) {
+        for (int y = 0; y < HIGH; y++) {
+            dst[y] = this.getRow(y);
+        }
+    }
+
+    @Override
+    int stateSize() {
+        return 2 + PLANES * MAX_HIGH * WORDS * Long.BYTES;
+    }
+
+    @Override
+    void writeTo(ByteBuffer dst) {
+        dst.put((byte) (hires ? 1 : 0));
+        dst.put((byte) planeMask);
+        for (long[] plane : planes) {
+            for (long word : plane) {
+                dst.putLong(word);
+            }
+        }
+    }
+
+    @Override
+    void readFrom(ByteBuffer src) {
+        hires = src.get() != 0;
+        planeMask = src.get() & 0x3;
+        for (long[] plane : planes) {
+            for (int k = 0; k < plane.length; k++) {
+                plane[k] = src.getLong();
+            }
+        }
+        this.markDirty(-1, -1L);
+    }
+
+    /**
+     * clear the selected planes
+     */
+    @Override
+    void clear() {
+        for (int p = 0; p < PLANES; p++) {
+            if ((planeMask >>> p & 1) != 0) {
+                Arrays.fill(planes[p], 0L);
+            }
+        }
+        this.markDirty(-1, -1L);
+    }
+
+    /**
+     * XOR one 8 pixel sprite row onto the selected planes, wrapping around both edges.
+     */
+    @Override
+    public boolean xorPixels(int x, int y, byte pixels) {
+        if (pixels == 0) {
+            return false;
+        }
+        int row = y & (this.getHeight() - 1);
+        boolean collision = false;
+        for (int p = 0; p < PLANES; p++) {
+            if ((planeMask >>> p & 1) != 0) {
+                collision |= this.xorRow(planes[p], x & (this.getWidth() - 1), row, (pixels & 0xFFL) << 56, false);
+            }
+        }
+        this.markDirty(1 << (hires ? row >>> 1 : row), -1L);
+        return collision;
+    }
+
+    /**
+     * Switch between 64x32 and 128x64, clearing all planes.
+     */
+    void setHires(boolean hires) {
+        this.hires = hires;
+        for (long[] plane : planes) {
+            Arrays.fill(plane, 0L);
+        }
+        this.markDirty(-1, -1L);
+    }
+
+    void selectPlanes(int mask) {
+        this.planeMask = mask & 0x3;
+    }
+
+    /**
+     * XOR a sprite onto the selected planes. The position wraps, the pixels past the right and bottom edges are
+     * dropped if clip is set, wrapped otherwise.
+     *
+     * @param sprite the sprite of each selected plane one after the other, 1 byte per row if width is 8, 2 if 16
+     * @return true if any pixel was erased
+     */
+    boolean draw(int x, int y, byte[] sprite, int height, int width, boolean clip) {
+        int w = this.getWidth();
+        int h = this.getHeight();
+        x &= w - 1;
+        y &= h - 1;
+        int bytes = width >>> 3;
+        int shift = 64 - width;
+        int offset = 0;
+        int dirty = 0;
+        boolean collision = false;
+        for (int p = 0; p < PLANES; p++) {
+            if ((planeMask >>> p & 1) == 0) {
+                continue;
+            }
+            long[] plane = planes[p];
+            for (int r = 0; r < height; r++, offset += bytes) {
+                int row = y + r;
+                if (row >= h) {
+                    if (clip) {
+                        offset += (height - r) * bytes;
+                        break;
+                    }
+                    row -= h;
+                }
+                long pixels = bytes == 2 ? (sprite[offset] & 0xFFL) << 8 | sprite[offset + 1] & 0xFFL
+                                         : sprite[offset] & 0xFFL;
+                if (pixels != 0) {
+                    collision |= this.xorRow(plane, x, row, pixels << shift, clip);
+                    dirty |= 1 << (hires ? row >>> 1 : row);
+                }
+            }
+        }
+        this.markDirty(dirty, -1L);
+        return collision;
+    }
+
+    void scrollDown(int n) {
+        int h = this.getHeight();
+        n = Math.min(n, h);
+        for (int p = 0; p < PLANES; p++) {
+            if ((planeMask >>> p & 1) != 0) {
+                long[] plane = planes[p];
+                System.arraycopy(plane, 0, plane, n * WORDS, (h - n) * WORDS);
+                Arrays.fill(plane, 0, n * WORDS, 0L);
+            }
+        }
+        this.markDirty(-1, -1L);
+    }
+
+    void scrollUp(int n) {
+        int h = this.getHeight();
+        n = Math.min(n, h);
+        for (int p = 0; p < PLANES; p++) {
+            if ((planeMask >>> p & 1) != 0) {
+                long[] plane = planes[p];
+                System.arraycopy(plane, n * WORDS, plane, 0, (h - n) * WORDS);
+                Arrays.fill(plane, (h - n) * WORDS, h * WORDS, 0L);
+            }
+        }
+        this.markDirty(-1, -1L);
+    }
+
+    /**
+     * scroll the selected planes 4 pixels right
+     */
+    void scrollRight() {
+        int h = this.getHeight();
+        for (int p = 0; p < PLANES; p++) {
+            if ((planeMask >>> p & 1) != 0) {
+                long[] plane = planes[p];
+                for (int at = 0; at < h * WORDS; at += WORDS) {
+                    if (hires) {
+                        plane[at + 1] = plane[at + 1] >>> 4 | plane[at] << 60;
+                    }
+                    plane[at] >>>= 4;
+                }
+            }
+        }
+        this.markDirty(-1, -1L);
+    }
+
+    /**
+     * scroll the selected planes 4 pixels left
+     */
+    void scrollLeft() {
+        int h = this.getHeight();
+        for (int p = 0; p < PLANES; p++) {
+            if ((planeMask >>> p & 1) != 0) {
+                long[] plane = planes[p];
+                for (int at = 0; at < h * WORDS; at += WORDS) {
+                    plane[at] <<= 4;
+                    if (hires) {
+                        plane[at] |= plane[at + 1] >>> 60;
+                        plane[at + 1] <<= 4;
+                    }
+                }
+            }
+        }
+        this.markDirty(-1, -1L);
+    }
+
+    /**
+     * XOR sprite, left-aligned in a long, onto row y at column x of plane
+     */
+    private boolean xorRow(long[] plane, int x, int y, long sprite, boolean clip) {
+        int words = hires ? WORDS : 1;
+        int at = y * WORDS;
+        int first = at + (x >>> 6);
+        int shift = x & 63;
+        long head = sprite >>> shift;
+        long tail = shift == 0 ? 0L : sprite << (64 - shift);
+        int second = first + 1;
+        if (second == at + words) {
+            // past the right edge
+            second = at;
+            if (clip) {
+                tail = 0L;
+            }
+        }
+        boolean collision = ((plane[first] & head) | (plane[second] & tail)) != 0;
+        plane[first] ^= head;
+        plane[second] ^= tail;
+        return collision;
+    }
+
+    /**
+     * @return the 32 pixels of a 64 pixel row halved, a pixel set if either of its pair is, in the low half
+     */
+    private static long halve(long row) {
+        return Long.compress(row | row << 1, LEFT_PIXELS);
+    }
+}
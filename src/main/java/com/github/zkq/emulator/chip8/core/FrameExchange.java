@@ -0,0 +1,121 @@
+package com.github.zkq.emulator.chip8.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Date:2026/10/18 17:30
+ * <p>
+ * Lock-free triple buffer handing finished frames from the emulation thread to one render thread.
+ * <p>
+ * The producer owns the back buffer, the consumer owns the front buffer, the third one sits in the middle. Publishing
+ * fills the back buffer from the screen and swaps it with the middle one, acquiring swaps the middle one with the
+ * front buffer if a new frame is there. Each side does one atomic swap, neither ever waits for the other: a slow
+ * renderer just skips frames, a slow emulator just leaves the renderer with the previous frame.
+ * <p>
+ * The buffers are whatever the consumer wants to read, the fill callback copies the screen into one.
+ * {@link #rows()} carries the 64x32 row view of {@link Screen#copyRows(long[])}, so an {@link ExtendedScreen} in
+ * high resolution arrives halved. Register it as a {@link ScreenListener} to publish every changed frame.
+ *
+ * @param <T> the frame buffer
+ * @author agent
+ */
+public final class FrameExchange<T> implements ScreenListener {
+
+    private static final int INDEX_MASK = 0x3;
+    /**
+     * set on the middle index when it holds a frame the consumer has not taken yet
+     */
+    private static final int FRESH = 0x4;
+
+    private final Object[] buffers = new Object[3];
+    private final BiConsumer<Screen, T> fill;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    /**
+     * producer side
+     */
+    private int back = 0;
+    /**
+     * consumer side
+     */
+    private int front = 2;
+
+    /**
+     * @param buffer creates each of the three buffers
+     * @param fill   copies a screen into a buffer, on the producer thread
+     */
+    public FrameExchange(Supplier<T> buffer, BiConsumer<Screen, T> fill) {
+        for (int k = 0; k < buffers.length; k++) {
+            buffers[k] = buffer.get();
+        }
+        this.fill = fill;
+    }
+
+    /**
+     * @return an exchange of {@link Screen#HIGH} rows as {@link Screen#copyRows(long[])} writes them
+     */
+    public static FrameExchange<long[]> rows() {
+        return new FrameExchange<>(() -> new long[Screen.HIGH], Screen::copyRows);
+    }
+
+    /**
+     * Publish the current screen content. Producer thread only.
+     */
+    public void publish(Screen screen) {
+        fill.accept(screen, this.buffer(back));
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    @Override
+    public void frameChanged(Screen screen, int dirtyRows, long dirtyColumns) {
+        this.publish(screen);
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @return true if a frame was published since the last {@link #poll()}
+     */
+    public boolean hasFrame() {
+        return (middle.get() & FRESH) != 0;
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @return the newest frame if one was published since the last call, otherwise null. The buffer stays valid and
+     * unchanged until the next call.
+     */
+    public T poll() {
+        if (!this.hasFrame()) {
+            return null;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return this.buffer(front);
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @return the frame last returned by {@link #poll()}, an unfilled buffer before the first one
+     */
+    public T current() {
+        return this.buffer(front);
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @return the newest frame, which may be the one already returned before
+     */
+    public T latest() {
+        T fresh = this.poll();
+        return fresh != null ? fresh : this.current();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T buffer(int index) {
+        return (T) buffers[index];
+    }
+}
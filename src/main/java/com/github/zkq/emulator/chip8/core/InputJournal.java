@@ -0,0 +1,211 @@
+package com.github.zkq.emulator.chip8.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Date:2026/10/18 15:30
+ * <p>
+ * Keyboard states stamped with the cycle they took effect at, plus the random seed the run started from.
+ * <p>
+ * While recording, key events from any thread are queued and applied by the emulation thread at the start of the
+ * next {@link Chip8#step(int)}, so the cycle stamp is exactly when the program first saw them. Replaying applies the
+ * same states at the same cycles and ignores live input. A replay must start from the same machine state as the
+ * recording, e.g. a fresh instance of the same rom.
+ *
+ * @author agent
+ */
+public final class InputJournal {
+
+    /**
+     * "C8IJ"
+     */
+    private static final int MAGIC = 0x4338494A;
+    private static final int VERSION = 1;
+    private static final int PRESSED = 0x10;
+
+    public enum Mode {
+        RECORD,
+        REPLAY
+    }
+
+    private final Mode mode;
+    /**
+     * queued key events, pending[head..tail) masked by the length, a power of two. Guarded by this, except that the
+     * emulation thread reads tail without the lock to skip an empty queue.
+     */
+    private int[] pending = new int[16];
+    private int head;
+    private volatile int tail;
+    private boolean started;
+    private long seed;
+    private long[] cycles;
+    private int[] states;
+    private int size;
+    /**
+     * next event to replay
+     */
+    private int next;
+
+    private InputJournal(Mode mode, long seed, long[] cycles, int[] states, int size) {
+        this.mode = mode;
+        this.seed = seed;
+        this.cycles = cycles;
+        this.states = states;
+        this.size = size;
+        this.started = mode == Mode.REPLAY;
+    }
+
+    public static InputJournal record() {
+        return new InputJournal(Mode.RECORD, 0, new long[64], new int[64], 0);
+    }
+
+    /**
+     * @return a journal replaying what recorded has captured so far
+     */
+    public static InputJournal replay(InputJournal recorded) {
+        return new InputJournal(Mode.REPLAY, recorded.seed, Arrays.copyOf(recorded.cycles, recorded.size),
+                                Arrays.copyOf(recorded.states, recorded.size), recorded.size);
+    }
+
+    public static InputJournal load(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("not an input journal");
+        }
+        long seed = in.readLong();
+        int size = in.readInt();
+        long[] cycles = new long[size];
+        int[] states = new int[size];
+        for (int n = 0; n < size; n++) {
+            cycles[n] = in.readLong();
+            states[n] = in.readInt();
+        }
+        return new InputJournal(Mode.REPLAY, seed, cycles, states, size);
+    }
+
+    public void save(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(seed);
+        out.writeInt(size);
+        for (int n = 0; n < size; n++) {
+            out.writeLong(cycles[n]);
+            out.writeInt(states[n]);
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return how many events the keyboard has seen so far: every recorded one, or the ones replayed up to now
+     */
+    public int getApplied() {
+        return mode == Mode.RECORD ? size : next;
+    }
+
+    /**
+     * @return the cycle event n took effect at
+     */
+    public long getCycle(int n) {
+        Objects.checkIndex(n, size);
+        return cycles[n];
+    }
+
+    /**
+     * @return the pressed key mask after event n, bit k set while key k is down
+     */
+    public int getPressedMask(int n) {
+        Objects.checkIndex(n, size);
+        return states[n] & 0xFFFF;
+    }
+
+    void attach(Chip8 chip8, Keyboard keyboard) {
+        if (mode == Mode.RECORD) {
+            if (!started) {
+                started = true;
+                seed = chip8.getSeed();
+                this.append(chip8.getCycles(), keyboard.getState());
+            }
+        } else {
+            chip8.setSeed(seed);
+            next = 0;
+        }
+        keyboard.setJournal(this);
+    }
+
+    void detach(Keyboard keyboard) {
+        keyboard.setJournal(null);
+    }
+
+    /**
+     * called by any thread instead of changing the keyboard state
+     */
+    void offer(int key, boolean pressed) {
+        if (mode == Mode.RECORD) {
+            synchronized (this) {
+                int[] ring = pending;
+                if (tail - head == ring.length) {
+                    // grow keeping every queued event at the same index modulo the new length
+                    int[] grown = new int[ring.length * 2];
+                    for (int n = head; n != tail; n++) {
+                        grown[n & (grown.length - 1)] = ring[n & (ring.length - 1)];
+                    }
+                    pending = ring = grown;
+                }
+                ring[tail & (ring.length - 1)] = pressed ? key | PRESSED : key;
+                tail++;
+            }
+        }
+    }
+
+    /**
+     * called by the emulation thread before running from cycle
+     */
+    void sync(long cycle, Keyboard keyboard) {
+        if (mode == Mode.RECORD) {
+            if (head == tail) {
+                return;
+            }
+            synchronized (this) {
+                for (; head != tail; head++) {
+                    int event = pending[head & (pending.length - 1)];
+                    keyboard.apply(event & 0xF, (event & PRESSED) != 0);
+                    this.append(cycle, keyboard.getState());
+                }
+            }
+        } else {
+            while (next < size && cycles[next] <= cycle) {
+                keyboard.setState(states[next++]);
+            }
+        }
+    }
+
+    /**
+     * @return how many cycles can run before the next replayed event is due
+     */
+    long cyclesUntilNextEvent(long cycle) {
+        if (mode == Mode.REPLAY && next < size) {
+            return cycles[next] - cycle;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private void append(long cycle, int state) {
+        if (size == cycles.length) {
+            cycles = Arrays.copyOf(cycles, size * 2);
+            states = Arrays.copyOf(states, size * 2);
+        }
+        cycles[size] = cycle;
+        states[size] = state;
+        size++;
+    }
+}
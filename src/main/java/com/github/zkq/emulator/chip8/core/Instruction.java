@@ -0,0 +1,151 @@
+package com.github.zkq.emulator.chip8.core;
+
+/**
+ * Date:2026/10/18 9:20
+ * <p>
+ * A decoded instruction, operands already extracted.
+ *
+ * @author agent
+ */
+public final class Instruction {
+    final Opcode opcode;
+    /**
+     * raw 16-bit opcode
+     */
+    final int op;
+    final int x;
+    final int y;
+    final int kk;
+    final int nnn;
+
+    private Instruction(int op, CompatibilityProfile profile) {
+        this.opcode = profile.map(Opcode.decode(op));
+        this.op = op;
+        this.x = (op & 0x0F00) >> 8;
+        this.y = (op & 0x00F0) >> 4;
+        this.kk = op & 0x00FF;
+        this.nnn = op & 0x0FFF;
+    }
+
+    public static Instruction decode(int op) {
+        return decode(op, CompatibilityProfile.DEFAULT);
+    }
+
+    public static Instruction decode(int op, CompatibilityProfile profile) {
+        return new Instruction(op & 0xFFFF, profile);
+    }
+
+    public Opcode getOpcode() {
+        return opcode;
+    }
+
+    public int getOp() {
+        return op;
+    }
+
+    /**
+     * @return the instruction in the usual CHIP-8 assembler syntax, e.g. "LD V1, 0x2A"
+     */
+    public String toAssembly() {
+        // variants assemble like the instruction they stand for
+        Opcode opcode = this.opcode.standard();
+        switch (opcode) {
+            case CLS:
+                return "CLS";
+            case RET:
+                return "RET";
+            case JP:
+                return String.format("JP 0x%03X", nnn);
+            case CALL:
+                return String.format("CALL 0x%03X", nnn);
+            case SE_VX_BYTE:
+                return String.format("SE V%X, 0x%02X", x, kk);
+            case SNE_VX_BYTE:
+                return String.format("SNE V%X, 0x%02X", x, kk);
+            case SE_VX_VY:
+                return String.format("SE V%X, V%X", x, y);
+            case LD_VX_BYTE:
+                return String.format("LD V%X, 0x%02X", x, kk);
+            case ADD_VX_BYTE:
+                return String.format("ADD V%X, 0x%02X", x, kk);
+            case LD_VX_VY:
+                return String.format("LD V%X, V%X", x, y);
+            case OR:
+            case AND:
+            case XOR:
+            case SUB:
+            case SHR:
+            case SUBN:
+            case SHL:
+                return String.format("%s V%X, V%X", opcode, x, y);
+            case ADD_VX_VY:
+                return String.format("ADD V%X, V%X", x, y);
+            case SNE_VX_VY:
+                return String.format("SNE V%X, V%X", x, y);
+            case LD_I:
+                return String.format("LD I, 0x%03X", nnn);
+            case JP_V0:
+                return String.format("JP V0, 0x%03X", nnn);
+            case RND:
+                return String.format("RND V%X, 0x%02X", x, kk);
+            case DRW:
+                return String.format("DRW V%X, V%X, %d", x, y, op & 0xF);
+            case SKP:
+                return String.format("SKP V%X", x);
+            case SKNP:
+                return String.format("SKNP V%X", x);
+            case LD_VX_DT:
+                return String.format("LD V%X, DT", x);
+            case LD_VX_K:
+                return String.format("LD V%X, K", x);
+            case LD_DT_VX:
+                return String.format("LD DT, V%X", x);
+            case LD_ST_VX:
+                return String.format("LD ST, V%X", x);
+            case ADD_I_VX:
+                return String.format("ADD I, V%X", x);
+            case LD_F_VX:
+                return String.format("LD F, V%X", x);
+            case LD_B_VX:
+                return String.format("LD B, V%X", x);
+            case LD_I_VX:
+                return String.format("LD [I], V%X", x);
+            case LD_VX_I:
+                return String.format("LD V%X, [I]", x);
+            case SCD:
+            case SCU:
+                return String.format("%s %d", opcode, op & 0xF);
+            case SCR:
+            case SCL:
+            case EXIT:
+            case LOW:
+            case HIGH:
+                return opcode.name();
+            case SAVE:
+                return String.format("LD [I], V%X-V%X", x, y);
+            case LOAD:
+                return String.format("LD V%X-V%X, [I]", x, y);
+            case LD_I_LONG:
+                return "LD I, LONG";
+            case PLANE:
+                return String.format("PLANE %d", x);
+            case AUDIO:
+                return "AUDIO";
+            case LD_HF_VX:
+                return String.format("LD HF, V%X", x);
+            case LD_PITCH_VX:
+                return String.format("PITCH V%X", x);
+            case LD_R_VX:
+                return String.format("LD R, V%X", x);
+            case LD_VX_R:
+                return String.format("LD V%X, R", x);
+            default:
+                return String.format("DW 0x%04X", op);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%04X %s", op, opcode);
+    }
+}
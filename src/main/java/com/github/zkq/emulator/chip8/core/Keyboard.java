@@ -1,15 +1,26 @@
 package com.github.zkq.emulator.chip8.core;
 
 import java.awt.event.KeyEvent;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Date:2020/4/14 10:23
+ * <p>
+ * The 16-key hex keypad. The whole keypad is one atomic int: bits 0-15 are the pressed keys, bits 16-19 the last
+ * key pressed, bits 20-31 count key presses, so Fx0A can tell a new press from a key still held.
  *
  * @author zhoukq
  */
 public class Keyboard {
 
     private static final int[] DEFAULT_KEY_MAP = {
+            KeyEvent.VK_SPACE, // Key 0
             KeyEvent.VK_4, // Key 1
             KeyEvent.VK_5, // Key 2
             KeyEvent.VK_6, // Key 3
@@ -27,26 +38,178 @@ public class Keyboard {
             KeyEvent.VK_M, // Key F
     };
 
-    private int[] keyMap = DEFAULT_KEY_MAP;
+    private static final int KEYS = 16;
+    private static final int MASK = 0xFFFF;
+    private static final int LAST_KEY_SHIFT = 16;
+    private static final int PRESS_SHIFT = 20;
 
-    private int currentKeyPressed = 0;
+    /**
+     * key code -> chip8 key, -1 if unmapped
+     */
+    private final int[] keyLookup;
 
-    public int getCurrentKeyPressed() {
-        return currentKeyPressed;
+    private final AtomicInteger state = new AtomicInteger();
+    /**
+     * counts every key event, including the ones queued in a journal
+     */
+    private final AtomicInteger events = new AtomicInteger();
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * when set, key events go to the journal, which applies them on the emulation thread
+     */
+    private volatile InputJournal journal;
+
+    public Keyboard() {
+        this(DEFAULT_KEY_MAP);
+    }
+
+    /**
+     * @param keyMap the key code for each chip8 key 0x0 -> 0xF
+     */
+    public Keyboard(int[] keyMap) {
+        if (keyMap.length != KEYS) {
+            throw new IllegalArgumentException("key map must have 16 entries");
+        }
+        int max = 0;
+        for (int keyCode : keyMap) {
+            max = Math.max(max, keyCode);
+        }
+        this.keyLookup = new int[max + 1];
+        Arrays.fill(keyLookup, -1);
+        for (int key = 0; key < KEYS; key++) {
+            keyLookup[keyMap[key]] = key;
+        }
+    }
+
+    public boolean isPressed(int key) {
+        return (state.get() >>> key & 1) != 0;
+    }
+
+    /**
+     * @return bit k set while key k is down
+     */
+    public int getPressedMask() {
+        return state.get() & MASK;
     }
 
     public void pressKey(int keyCode) {
-        for (int i = 0; i < keyMap.length; i++) {
-            if (keyMap[i] == keyCode) {
-                currentKeyPressed = i + 1;
-                break;
+        this.keyCode(keyCode, true);
+    }
+
+    public void releaseKey(int keyCode) {
+        this.keyCode(keyCode, false);
+    }
+
+    /**
+     * press or release chip8 key 0x0 -> 0xF directly
+     */
+    public void setKey(int key, boolean pressed) {
+        if (key < 0 || key >= KEYS) {
+            throw new IllegalArgumentException("no key " + key);
+        }
+        InputJournal j = journal;
+        if (j == null) {
+            this.apply(key, pressed);
+        } else {
+            j.offer(key, pressed);
+            this.signal();
+        }
+    }
+
+    /**
+     * Run listener after every key event, on the thread reporting the event. Used by schedulers to resume instances
+     * waiting for input.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return the number of key events so far
+     */
+    public int getEventCount() {
+        return events.get();
+    }
+
+    /**
+     * Park the calling thread until the next key event, unless one already happened since {@link #getEventCount()}
+     * returned seen. Also returns on timeout, unpark or spuriously, callers re-check their condition.
+     */
+    public void awaitEvent(int seen, long timeoutNanos) {
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            if (events.get() == seen) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            waiters.remove(current);
+        }
+    }
+
+    private void keyCode(int keyCode, boolean pressed) {
+        if (keyCode >= 0 && keyCode < keyLookup.length && keyLookup[keyCode] >= 0) {
+            this.setKey(keyLookup[keyCode], pressed);
+        }
+    }
+
+    void apply(int key, boolean pressed) {
+        int s;
+        int next;
+        do {
+            s = state.get();
+            if (pressed == ((s >>> key & 1) != 0)) {
+                // auto-repeat of a held key, or release of a key that is up
+                return;
+            }
+            if (pressed) {
+                next = (s | 1 << key) & ~(0xF << LAST_KEY_SHIFT) | key << LAST_KEY_SHIFT;
+                next += 1 << PRESS_SHIFT;
+            } else {
+                next = s & ~(1 << key);
             }
+        } while (!state.compareAndSet(s, next));
+        this.signal();
+    }
+
+    private void signal() {
+        events.incrementAndGet();
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
         }
     }
 
-    // should block waiting
-    public int waitForKey() {
-        // TODO: 2020/4/14 10:43
-        return 0;
+    void setJournal(InputJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @return the whole keypad state, an opaque value that changes on every applied key event
+     */
+    public int getState() {
+        return state.get();
+    }
+
+    void setState(int state) {
+        this.state.set(state);
+        this.signal();
+    }
+
+    static int pressCount(int state) {
+        return state >>> PRESS_SHIFT;
+    }
+
+    static int lastPressed(int state) {
+        return state >>> LAST_KEY_SHIFT & 0xF;
     }
 }
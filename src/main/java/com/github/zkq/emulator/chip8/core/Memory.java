@@ -0,0 +1,125 @@
+package com.github.zkq.emulator.chip8.core;
+
+import com.github.zkq.emulator.chip8.Commons;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Date:2026/10/18 13:10
+ * <p>
+ * Paged copy-on-write memory. Pages start out shared with the {@link Rom}, a page is copied the first time it is
+ * written.
+ *
+ * @author agent
+ */
+final class Memory {
+
+    static final int PAGE_BITS = 8;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final byte[][] pages;
+    /**
+     * true while pages[p] still belongs to the rom
+     */
+    private final boolean[] shared;
+
+    Memory(Rom rom, int size) {
+        Commons.assertCondition(rom.pages().length > size >> PAGE_BITS,
+                                (Supplier<IllegalArgumentException>) () -> new IllegalArgumentException("rom is too big"));
+        this.pages = rom.pages(size >> PAGE_BITS);
+        this.shared = new boolean[pages.length];
+        Arrays.fill(shared, true);
+    }
+
+    int size() {
+        return pages.length << PAGE_BITS;
+    }
+
+    byte read(int addr) {
+        return pages[addr >> PAGE_BITS][addr & PAGE_MASK];
+    }
+
+    /**
+     * @return the big-endian 16-bit word at addr
+     */
+    int readWord(int addr) {
+        return (read(addr) & 0xFF) << 8 | read((addr + 1) & (size() - 1)) & 0xFF;
+    }
+
+    void read(int addr, byte[] dst, int offset, int length) {
+        for (int j = 0; j < length; j++) {
+            dst[offset + j] = read(addr + j);
+        }
+    }
+
+    void write(int addr, byte value) {
+        writablePage(addr >> PAGE_BITS)[addr & PAGE_MASK] = value;
+    }
+
+    void write(int addr, byte[] src, int offset, int length) {
+        for (int j = 0; j < length; j++) {
+            write(addr + j, src[offset + j]);
+        }
+    }
+
+    /**
+     * put the whole memory into dst at its position
+     */
+    void copyTo(ByteBuffer dst) {
+        for (byte[] page : pages) {
+            dst.put(page);
+        }
+    }
+
+    /**
+     * Load the whole memory from src at its position. Pages whose content does not change stay shared.
+     */
+    void copyFrom(ByteBuffer src) {
+        for (int p = 0; p < pages.length; p++) {
+            int base = src.position();
+            byte[] page = pages[p];
+            int j = 0;
+            while (j < PAGE_SIZE && src.get(base + j) == page[j]) {
+                j++;
+            }
+            if (j < PAGE_SIZE) {
+                page = writablePage(p);
+                src.position(base + j);
+                src.get(page, j, PAGE_SIZE - j);
+            } else {
+                src.position(base + PAGE_SIZE);
+            }
+        }
+    }
+
+    /**
+     * @return true if the page holding addr is still the rom's
+     */
+    boolean isShared(int addr) {
+        return shared[addr >> PAGE_BITS];
+    }
+
+    /**
+     * @return the number of pages this instance has copied
+     */
+    int privatePages() {
+        int n = 0;
+        for (boolean s : shared) {
+            if (!s) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private byte[] writablePage(int p) {
+        if (shared[p]) {
+            pages[p] = pages[p].clone();
+            shared[p] = false;
+        }
+        return pages[p];
+    }
+}
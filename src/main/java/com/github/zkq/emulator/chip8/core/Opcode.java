@@ -0,0 +1,431 @@
+package com.github.zkq.emulator.chip8.core;
+
+/**
+ * Date:2026/10/18 9:12
+ * <p>
+ * All CHIP-8 instructions, one constant per distinct behaviour.
+ * <p>
+ * The SUPER-CHIP and XO-CHIP instructions are decoded like the others, profiles of a machine without them map them to
+ * {@link #UNKNOWN}, see {@link CompatibilityProfile.Machine}.
+ * <p>
+ * The constants after {@link #UNKNOWN} are the behaviours other interpreters gave the same encodings. {@link #decode}
+ * never returns them, a {@link CompatibilityProfile} substitutes them for the standard ones when instructions are
+ * decoded, so executing them needs no quirk checks.
+ *
+ * @author agent
+ */
+public enum Opcode {
+    /**
+     * 00E0 - CLS
+     */
+    CLS,
+    /**
+     * 00EE - RET
+     */
+    RET,
+    /**
+     * 1nnn - JP addr
+     */
+    JP,
+    /**
+     * 2nnn - CALL addr
+     */
+    CALL,
+    /**
+     * 3xkk - SE Vx, byte
+     */
+    SE_VX_BYTE,
+    /**
+     * 4xkk - SNE Vx, byte
+     */
+    SNE_VX_BYTE,
+    /**
+     * 5xy0 - SE Vx, Vy
+     */
+    SE_VX_VY,
+    /**
+     * 6xkk - LD Vx, byte
+     */
+    LD_VX_BYTE,
+    /**
+     * 7xkk - ADD Vx, byte
+     */
+    ADD_VX_BYTE,
+    /**
+     * 8xy0 - LD Vx, Vy
+     */
+    LD_VX_VY,
+    /**
+     * 8xy1 - OR Vx, Vy
+     */
+    OR,
+    /**
+     * 8xy2 - AND Vx, Vy
+     */
+    AND,
+    /**
+     * 8xy3 - XOR Vx, Vy
+     */
+    XOR,
+    /**
+     * 8xy4 - ADD Vx, Vy
+     */
+    ADD_VX_VY,
+    /**
+     * 8xy5 - SUB Vx, Vy
+     */
+    SUB,
+    /**
+     * 8xy6 - SHR Vx {, Vy}
+     */
+    SHR,
+    /**
+     * 8xy7 - SUBN Vx, Vy
+     */
+    SUBN,
+    /**
+     * 8xyE - SHL Vx {, Vy}
+     */
+    SHL,
+    /**
+     * 9xy0 - SNE Vx, Vy
+     */
+    SNE_VX_VY,
+    /**
+     * Annn - LD I, addr
+     */
+    LD_I,
+    /**
+     * Bnnn - JP V0, addr
+     */
+    JP_V0,
+    /**
+     * Cxkk - RND Vx, byte
+     */
+    RND,
+    /**
+     * Dxyn - DRW Vx, Vy, nibble
+     */
+    DRW,
+    /**
+     * Ex9E - SKP Vx
+     */
+    SKP,
+    /**
+     * ExA1 - SKNP Vx
+     */
+    SKNP,
+    /**
+     * Fx07 - LD Vx, DT
+     */
+    LD_VX_DT,
+    /**
+     * Fx0A - LD Vx, K
+     */
+    LD_VX_K,
+    /**
+     * Fx15 - LD DT, Vx
+     */
+    LD_DT_VX,
+    /**
+     * Fx18 - LD ST, Vx
+     */
+    LD_ST_VX,
+    /**
+     * Fx1E - ADD I, Vx
+     */
+    ADD_I_VX,
+    /**
+     * Fx29 - LD F, Vx
+     */
+    LD_F_VX,
+    /**
+     * Fx33 - LD B, Vx
+     */
+    LD_B_VX,
+    /**
+     * Fx55 - LD [I], Vx
+     */
+    LD_I_VX,
+    /**
+     * Fx65 - LD Vx, [I]
+     */
+    LD_VX_I,
+    /**
+     * 00Cn - SCD nibble, SUPER-CHIP
+     */
+    SCD,
+    /**
+     * 00Dn - SCU nibble, XO-CHIP
+     */
+    SCU,
+    /**
+     * 00FB - SCR, SUPER-CHIP
+     */
+    SCR,
+    /**
+     * 00FC - SCL, SUPER-CHIP
+     */
+    SCL,
+    /**
+     * 00FD - EXIT, SUPER-CHIP
+     */
+    EXIT,
+    /**
+     * 00FE - LOW, SUPER-CHIP
+     */
+    LOW,
+    /**
+     * 00FF - HIGH, SUPER-CHIP
+     */
+    HIGH,
+    /**
+     * 5xy2 - LD [I], Vx-Vy, XO-CHIP
+     */
+    SAVE,
+    /**
+     * 5xy3 - LD Vx-Vy, [I], XO-CHIP
+     */
+    LOAD,
+    /**
+     * F000 nnnn - LD I, long addr, XO-CHIP
+     */
+    LD_I_LONG,
+    /**
+     * Fn01 - PLANE n, XO-CHIP
+     */
+    PLANE,
+    /**
+     * F002 - AUDIO, XO-CHIP
+     */
+    AUDIO,
+    /**
+     * Fx30 - LD HF, Vx, SUPER-CHIP
+     */
+    LD_HF_VX,
+    /**
+     * Fx3A - PITCH Vx, XO-CHIP
+     */
+    LD_PITCH_VX,
+    /**
+     * Fx75 - LD R, Vx, SUPER-CHIP
+     */
+    LD_R_VX,
+    /**
+     * Fx85 - LD Vx, R, SUPER-CHIP
+     */
+    LD_VX_R,
+    /**
+     * anything else
+     */
+    UNKNOWN,
+    /**
+     * 8xy1 - OR Vx, Vy, then VF = 0
+     */
+    OR_VF,
+    /**
+     * 8xy2 - AND Vx, Vy, then VF = 0
+     */
+    AND_VF,
+    /**
+     * 8xy3 - XOR Vx, Vy, then VF = 0
+     */
+    XOR_VF,
+    /**
+     * 8xy6 - SHR Vx, Vy: Vx = Vy SHR 1
+     */
+    SHR_VY,
+    /**
+     * 8xyE - SHL Vx, Vy: Vx = Vy SHL 1
+     */
+    SHL_VY,
+    /**
+     * Bxnn - JP Vx, addr: jump to xnn + Vx
+     */
+    JP_VX,
+    /**
+     * Dxyn - DRW Vx, Vy, nibble, clipping the sprite at the screen edges instead of wrapping it
+     */
+    DRW_CLIP,
+    /**
+     * Dxyn - DRW Vx, Vy, nibble on an {@link ExtendedScreen}: Dxy0 draws 16x16, one sprite per selected plane
+     */
+    DRW_EXT,
+    /**
+     * {@link #DRW_EXT} clipping the sprite at the screen edges
+     */
+    DRW_EXT_CLIP,
+    /**
+     * Fx55 - LD [I], Vx, then I = I + x + 1
+     */
+    LD_I_VX_INC,
+    /**
+     * Fx65 - LD Vx, [I], then I = I + x + 1
+     */
+    LD_VX_I_INC;
+
+    /**
+     * @return the constant {@link #decode} returns for the encodings this one stands for
+     */
+    Opcode standard() {
+        switch (this) {
+            case OR_VF:
+                return OR;
+            case AND_VF:
+                return AND;
+            case XOR_VF:
+                return XOR;
+            case SHR_VY:
+                return SHR;
+            case SHL_VY:
+                return SHL;
+            case JP_VX:
+                return JP_V0;
+            case DRW_CLIP:
+            case DRW_EXT:
+            case DRW_EXT_CLIP:
+                return DRW;
+            case LD_I_VX_INC:
+                return LD_I_VX;
+            case LD_VX_I_INC:
+                return LD_VX_I;
+            default:
+                return this;
+        }
+    }
+
+    public static Opcode decode(int op) {
+        switch (op >> 12) {
+            case 0x0:
+                switch (op) {
+                    case 0x00E0:
+                        return CLS;
+                    case 0x00EE:
+                        return RET;
+                    case 0x00FB:
+                        return SCR;
+                    case 0x00FC:
+                        return SCL;
+                    case 0x00FD:
+                        return EXIT;
+                    case 0x00FE:
+                        return LOW;
+                    case 0x00FF:
+                        return HIGH;
+                    default:
+                        switch (op & 0xFFF0) {
+                            case 0x00C0:
+                                return SCD;
+                            case 0x00D0:
+                                return SCU;
+                            default:
+                                return UNKNOWN;
+                        }
+                }
+            case 0x1:
+                return JP;
+            case 0x2:
+                return CALL;
+            case 0x3:
+                return SE_VX_BYTE;
+            case 0x4:
+                return SNE_VX_BYTE;
+            case 0x5:
+                switch (op & 0xF) {
+                    case 0x0:
+                        return SE_VX_VY;
+                    case 0x2:
+                        return SAVE;
+                    case 0x3:
+                        return LOAD;
+                    default:
+                        return UNKNOWN;
+                }
+            case 0x6:
+                return LD_VX_BYTE;
+            case 0x7:
+                return ADD_VX_BYTE;
+            case 0x8:
+                switch (op & 0xF) {
+                    case 0x0:
+                        return LD_VX_VY;
+                    case 0x1:
+                        return OR;
+                    case 0x2:
+                        return AND;
+                    case 0x3:
+                        return XOR;
+                    case 0x4:
+                        return ADD_VX_VY;
+                    case 0x5:
+                        return SUB;
+                    case 0x6:
+                        return SHR;
+                    case 0x7:
+                        return SUBN;
+                    case 0xE:
+                        return SHL;
+                    default:
+                        return UNKNOWN;
+                }
+            case 0x9:
+                return (op & 0xF) == 0 ? SNE_VX_VY : UNKNOWN;
+            case 0xA:
+                return LD_I;
+            case 0xB:
+                return JP_V0;
+            case 0xC:
+                return RND;
+            case 0xD:
+                return DRW;
+            case 0xE:
+                switch (op & 0x00FF) {
+                    case 0x9E:
+                        return SKP;
+                    case 0xA1:
+                        return SKNP;
+                    default:
+                        return UNKNOWN;
+                }
+            case 0xF:
+                switch (op & 0x00FF) {
+                    case 0x00:
+                        return op == 0xF000 ? LD_I_LONG : UNKNOWN;
+                    case 0x01:
+                        return PLANE;
+                    case 0x02:
+                        return op == 0xF002 ? AUDIO : UNKNOWN;
+                    case 0x07:
+                        return LD_VX_DT;
+                    case 0x0A:
+                        return LD_VX_K;
+                    case 0x15:
+                        return LD_DT_VX;
+                    case 0x18:
+                        return LD_ST_VX;
+                    case 0x1E:
+                        return ADD_I_VX;
+                    case 0x29:
+                        return LD_F_VX;
+                    case 0x30:
+                        return LD_HF_VX;
+                    case 0x33:
+                        return LD_B_VX;
+                    case 0x3A:
+                        return LD_PITCH_VX;
+                    case 0x55:
+                        return LD_I_VX;
+                    case 0x65:
+                        return LD_VX_I;
+                    case 0x75:
+                        return LD_R_VX;
+                    case 0x85:
+                        return LD_VX_R;
+                    default:
+                        return UNKNOWN;
+                }
+            default:
+                return UNKNOWN;
+        }
+    }
+}
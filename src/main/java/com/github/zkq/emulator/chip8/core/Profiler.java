@@ -0,0 +1,148 @@
+package com.github.zkq.emulator.chip8.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Date:2026/10/18 20:30
+ * <p>
+ * Counts executed instructions per opcode and per address, for {@link Chip8#setProfiler(Profiler)}.
+ * <p>
+ * Counters are plain long arrays indexed by {@link Opcode#ordinal()} and by address, updated by the emulation thread
+ * only. While a profiler is attached the instance runs the interpreter, so every instruction is seen at its own
+ * address; detached, the only cost left is one null check per batch.
+ *
+ * @author agent
+ */
+public final class Profiler implements ProfilerMXBean {
+
+    private static final Opcode[] OPCODES = Opcode.values();
+    private static final int DEFAULT_TOP_N = 16;
+
+    private final long[] opcodeCounts = new long[OPCODES.length];
+    private final long[] pcCounts = new long[Rom.MEMORY_SIZE];
+    /**
+     * opcode last executed at each address, for the hot address list
+     */
+    private final byte[] pcOpcodes = new byte[Rom.MEMORY_SIZE];
+    private volatile int topN = DEFAULT_TOP_N;
+    private ObjectName name;
+
+    void count(int pc, Opcode opcode) {
+        opcodeCounts[opcode.ordinal()]++;
+        pcCounts[pc]++;
+        pcOpcodes[pc] = (byte) opcode.ordinal();
+    }
+
+    public long getCount(Opcode opcode) {
+        return opcodeCounts[opcode.ordinal()];
+    }
+
+    public long getCount(int address) {
+        return pcCounts[address];
+    }
+
+    @Override
+    public long getInstructions() {
+        long sum = 0;
+        for (long count : opcodeCounts) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    @Override
+    public long getDrawCalls() {
+        return this.getCount(Opcode.DRW) + this.getCount(Opcode.DRW_CLIP) + this.getCount(Opcode.DRW_EXT)
+                + this.getCount(Opcode.DRW_EXT_CLIP);
+    }
+
+    @Override
+    public long getScreenClears() {
+        return this.getCount(Opcode.CLS);
+    }
+
+    @Override
+    public Map<String, Long> getOpcodeCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Opcode opcode : OPCODES) {
+            long count = opcodeCounts[opcode.ordinal()];
+            if (count != 0) {
+                counts.put(opcode.name(), count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return up to n addresses, most executed first
+     */
+    public int[] getHotAddresses(int n) {
+        // the addresses are sorted by packing count and address into one long, counts beyond 2^40 saturate
+        long[] keys = new long[pcCounts.length];
+        int used = 0;
+        for (int addr = 0; addr < pcCounts.length; addr++) {
+            long count = pcCounts[addr];
+            if (count != 0) {
+                keys[used++] = Math.min(count, (1L << 40) - 1) << 16 | addr;
+            }
+        }
+        Arrays.sort(keys, 0, used);
+        int[] hot = new int[Math.min(n, used)];
+        for (int k = 0; k < hot.length; k++) {
+            hot[k] = (int) (keys[used - 1 - k] & 0xFFFF);
+        }
+        return hot;
+    }
+
+    @Override
+    public List<String> getHotAddresses() {
+        List<String> hot = new ArrayList<>();
+        for (int addr : this.getHotAddresses(topN)) {
+            hot.add(String.format("0x%03x %s %d", addr, OPCODES[pcOpcodes[addr]], pcCounts[addr]));
+        }
+        return hot;
+    }
+
+    @Override
+    public int getTopN() {
+        return topN;
+    }
+
+    @Override
+    public void setTopN(int topN) {
+        if (topN < 1) {
+            throw new IllegalArgumentException("topN must be positive");
+        }
+        this.topN = topN;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(opcodeCounts, 0);
+        Arrays.fill(pcCounts, 0);
+    }
+
+    /**
+     * Register with the platform MBean server as com.github.zkq.emulator.chip8:type=Profiler,name=name.
+     */
+    public synchronized void register(String name) throws JMException {
+        this.unregister();
+        ObjectName objectName = new ObjectName("com.github.zkq.emulator.chip8:type=Profiler,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.name = objectName;
+    }
+
+    public synchronized void unregister() throws JMException {
+        if (name != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            name = null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.zkq.emulator.chip8.core;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Date:2026/10/18 20:30
+ * <p>
+ * JMX view of a {@link Profiler}. Counters are read while the instance runs, so they may lag by a batch.
+ *
+ * @author agent
+ */
+public interface ProfilerMXBean {
+
+    long getInstructions();
+
+    long getDrawCalls();
+
+    long getScreenClears();
+
+    /**
+     * @return executions per opcode, opcodes never executed left out
+     */
+    Map<String, Long> getOpcodeCounts();
+
+    /**
+     * @return the {@link #getTopN()} most executed addresses, most executed first, as "0x2a4 LD_VX_BYTE 12345"
+     */
+    List<String> getHotAddresses();
+
+    int getTopN();
+
+    void setTopN(int topN);
+
+    void reset();
+}
@@ -0,0 +1,272 @@
+package com.github.zkq.emulator.chip8.core;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.lang.invoke.MethodHandles;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Date:2026/10/18 10:12
+ * <p>
+ * Turns hot straight-line runs of CHIP-8 code into JVM classes, one class per basic block.
+ * <p>
+ * A block starts at the address it is entered from and stops before the first instruction that changes control flow
+ * (jumps, calls, returns, skips), writes memory (Fx33, Fx55, so a block never modifies itself), waits for a key, or is
+ * unknown. That instruction is left to the interpreter, as is all code that has not been entered
+ * {@link #HOT_THRESHOLD} times yet.
+ *
+ * @author agent
+ */
+final class Recompiler {
+
+    private static final Logger LOGGER = Logger.getLogger(Recompiler.class.getName());
+
+    static final int HOT_THRESHOLD = 32;
+    static final int MAX_BLOCK_LENGTH = 64;
+    /**
+     * hit count marking an address as not worth compiling until its code changes
+     */
+    private static final int NOT_COMPILABLE = -1;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final String BLOCK_TYPE = CompiledBlock.class.getName().replace('.', '/');
+    private static final String CHIP8_TYPE = Chip8.class.getName().replace('.', '/');
+    private static final String INIT_DESC = "(II[I)V";
+    private static final String RUN_DESC = "(L" + CHIP8_TYPE + ";[B)V";
+    private static final String HELPER_DESC = "(L" + CHIP8_TYPE + ";I)V";
+    private static final String EXEC_DESC = "(L" + CHIP8_TYPE + ";II)V";
+
+    private final Memory memory;
+    private final CompatibilityProfile profile;
+    private final CompiledBlock[] blocks;
+    private final int[] hits;
+
+    Recompiler(Memory memory, CompatibilityProfile profile) {
+        this.memory = memory;
+        this.profile = profile;
+        this.blocks = new CompiledBlock[memory.size()];
+        this.hits = new int[memory.size()];
+    }
+
+    /**
+     * @return the compiled block starting at pc, or null if pc should be interpreted for now
+     */
+    CompiledBlock lookup(int pc) {
+        CompiledBlock block = blocks[pc];
+        if (block != null) {
+            return block;
+        }
+        int h = hits[pc];
+        if (h == NOT_COMPILABLE) {
+            return null;
+        }
+        if (h + 1 < HOT_THRESHOLD) {
+            hits[pc] = h + 1;
+            return null;
+        }
+        block = compile(pc);
+        if (block == null) {
+            hits[pc] = NOT_COMPILABLE;
+        } else {
+            blocks[pc] = block;
+        }
+        return block;
+    }
+
+    /**
+     * drop every block overlapping memory[addr, addr + length)
+     */
+    void invalidate(int addr, int length) {
+        int from = Math.max(0, addr - MAX_BLOCK_LENGTH * 2);
+        int to = Math.min(addr + length, memory.size());
+        for (int a = from; a < to; a++) {
+            CompiledBlock block = blocks[a];
+            if (block != null && block.end > addr) {
+                blocks[a] = null;
+            }
+            if (a >= addr - 1) {
+                hits[a] = 0;
+            }
+        }
+    }
+
+    private CompiledBlock compile(int start) {
+        int pc = start;
+        int length = 0;
+        while (length < MAX_BLOCK_LENGTH && pc + 1 < memory.size() && isStraightLine(fetch(pc))) {
+            pc += 2;
+            length++;
+        }
+        if (length == 0) {
+            return null;
+        }
+        try {
+            int[] ops = new int[length];
+            for (int k = 0; k < length; k++) {
+                ops[k] = fetch(start + 2 * k);
+            }
+            return define(start, pc, ops);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.log(Level.WARNING, "failed to compile block at " + Integer.toHexString(start), e);
+            return null;
+        }
+    }
+
+    private int fetch(int addr) {
+        return memory.readWord(addr);
+    }
+
+    private Opcode decode(int op) {
+        return profile.map(Opcode.decode(op));
+    }
+
+    private boolean isStraightLine(int op) {
+        switch (this.decode(op)) {
+            case CLS:
+            case LD_VX_BYTE:
+            case ADD_VX_BYTE:
+            case LD_VX_VY:
+            case OR:
+            case AND:
+            case XOR:
+            case OR_VF:
+            case AND_VF:
+            case XOR_VF:
+            case ADD_VX_VY:
+            case SUB:
+            case SHR:
+            case SUBN:
+            case SHL:
+            case SHR_VY:
+            case SHL_VY:
+            case LD_I:
+            case RND:
+            case DRW:
+            case DRW_CLIP:
+            case LD_VX_DT:
+            case LD_DT_VX:
+            case LD_ST_VX:
+            case ADD_I_VX:
+            case LD_F_VX:
+            case LD_VX_I:
+            case LD_VX_I_INC:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private CompiledBlock define(int start, int end, int[] ops) throws ReflectiveOperationException {
+        String name = String.format("%s$%03X_%03X", BLOCK_TYPE, start, end);
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, name, null, BLOCK_TYPE, null);
+
+        MethodVisitor init = cw.visitMethod(0, "<init>", INIT_DESC, null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitVarInsn(Opcodes.ILOAD, 1);
+        init.visitVarInsn(Opcodes.ILOAD, 2);
+        init.visitVarInsn(Opcodes.ALOAD, 3);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, BLOCK_TYPE, "<init>", INIT_DESC, false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(0, "run", RUN_DESC, null, null);
+        mv.visitCode();
+        for (int k = 0; k < ops.length; k++) {
+            emit(mv, this.decode(ops[k]), ops[k], start + 2 * k);
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+
+        // not strongly linked to this loader, so a dropped block can be unloaded on its own
+        Class<?> type = LOOKUP.defineHiddenClass(cw.toByteArray(), true).lookupClass();
+        return (CompiledBlock) type.getDeclaredConstructor(int.class, int.class, int[].class)
+                                   .newInstance(start, end, ops);
+    }
+
+    /**
+     * register transfers and ALU ops without flags are inlined on the v array (local 2),
+     * everything else calls back into the interpreter through {@link CompiledBlock}
+     */
+    private static void emit(MethodVisitor mv, Opcode opcode, int op, int addr) {
+        int x = (op & 0x0F00) >> 8;
+        int y = (op & 0x00F0) >> 4;
+        int kk = op & 0x00FF;
+        switch (opcode) {
+            case LD_VX_BYTE:
+                mv.visitVarInsn(Opcodes.ALOAD, 2);
+                pushInt(mv, x);
+                pushInt(mv, (byte) kk);
+                mv.visitInsn(Opcodes.BASTORE);
+                break;
+            case ADD_VX_BYTE:
+                mv.visitVarInsn(Opcodes.ALOAD, 2);
+                pushInt(mv, x);
+                loadV(mv, x);
+                pushInt(mv, (byte) kk);
+                mv.visitInsn(Opcodes.IADD);
+                mv.visitInsn(Opcodes.BASTORE);
+                break;
+            case LD_VX_VY:
+                mv.visitVarInsn(Opcodes.ALOAD, 2);
+                pushInt(mv, x);
+                loadV(mv, y);
+                mv.visitInsn(Opcodes.BASTORE);
+                break;
+            case OR:
+                emitLogic(mv, x, y, Opcodes.IOR);
+                break;
+            case AND:
+                emitLogic(mv, x, y, Opcodes.IAND);
+                break;
+            case XOR:
+                emitLogic(mv, x, y, Opcodes.IXOR);
+                break;
+            case LD_I:
+                mv.visitVarInsn(Opcodes.ALOAD, 1);
+                pushInt(mv, op & 0x0FFF);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, BLOCK_TYPE, "setI", HELPER_DESC, false);
+                break;
+            default:
+                mv.visitVarInsn(Opcodes.ALOAD, 1);
+                pushInt(mv, op);
+                pushInt(mv, addr);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, BLOCK_TYPE, "exec", EXEC_DESC, false);
+                break;
+        }
+    }
+
+    private static void emitLogic(MethodVisitor mv, int x, int y, int insn) {
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        pushInt(mv, x);
+        loadV(mv, x);
+        loadV(mv, y);
+        mv.visitInsn(insn);
+        mv.visitInsn(Opcodes.BASTORE);
+    }
+
+    private static void loadV(MethodVisitor mv, int index) {
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        pushInt(mv, index);
+        mv.visitInsn(Opcodes.BALOAD);
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.zkq.emulator.chip8.core;
+
+import com.github.zkq.emulator.chip8.Commons;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Date:2026/10/18 13:05
+ * <p>
+ * A program loaded into read-only memory pages. One Rom can back any number of {@link Chip8} instances,
+ * they share its pages until they write to them.
+ *
+ * @author agent
+ */
+public final class Rom {
+
+    static final int LOAD_ADDRESS = 0x200;
+    static final int MEMORY_SIZE = 0x1000;
+    /**
+     * the largest memory of any machine, XO-CHIP
+     */
+    static final int MAX_MEMORY_SIZE = 0x10000;
+    /**
+     * the SUPER-CHIP 8x10 digits, right after the small ones
+     */
+    static final int BIG_FONT_ADDRESS = 0x50;
+
+    private static final int[] HEX_CHARS = new int[]{
+            0xF0, 0x90, 0x90, 0x90, 0xF0, // 0
+            0x20, 0x60, 0x20, 0x20, 0x70, // 1
+            0xF0, 0x10, 0xF0, 0x80, 0xF0, // 2
+            0xF0, 0x10, 0xF0, 0x10, 0xF0, // 3
+            0x90, 0x90, 0xF0, 0x10, 0x10, // 4
+            0xF0, 0x80, 0xF0, 0x10, 0xF0, // 5
+            0xF0, 0x80, 0xF0, 0x90, 0xF0, // 6
+            0xF0, 0x10, 0x20, 0x40, 0x40, // 7
+            0xF0, 0x90, 0xF0, 0x90, 0xF0, // 8
+            0xF0, 0x90, 0xF0, 0x10, 0xF0, // 9
+            0xF0, 0x90, 0xF0, 0x90, 0x90, // A
+            0xE0, 0x90, 0xE0, 0x90, 0xE0, // B
+            0xF0, 0x80, 0x80, 0x80, 0xF0, // C
+            0xE0, 0x90, 0x90, 0x90, 0xE0, // D
+            0xF0, 0x80, 0xF0, 0x80, 0xF0, // E
+            0xF0, 0x80, 0xF0, 0x80, 0x80 // F
+    };
+
+    private static final int[] BIG_HEX_CHARS = new int[]{
+            0x3C, 0x7E, 0xE7, 0xC3, 0xC3, 0xC3, 0xC3, 0xE7, 0x7E, 0x3C, // 0
+            0x18, 0x38, 0x58, 0x18, 0x18, 0x18, 0x18, 0x18, 0x18, 0x3C, // 1
+            0x3E, 0x7F, 0xC3, 0x06, 0x0C, 0x18, 0x30, 0x60, 0xFF, 0xFF, // 2
+            0x3C, 0x7E, 0xC3, 0x03, 0x0E, 0x0E, 0x03, 0xC3, 0x7E, 0x3C, // 3
+            0x06, 0x0E, 0x1E, 0x36, 0x66, 0xC6, 0xFF, 0xFF, 0x06, 0x06, // 4
+            0xFF, 0xFF, 0xC0, 0xC0, 0xFC, 0xFE, 0x03, 0xC3, 0x7E, 0x3C, // 5
+            0x3E, 0x7C, 0xE0, 0xC0, 0xFC, 0xFE, 0xC3, 0xC3, 0x7E, 0x3C, // 6
+            0xFF, 0xFF, 0x03, 0x06, 0x0C, 0x18, 0x30, 0x60, 0x60, 0x60, // 7
+            0x3C, 0x7E, 0xC3, 0xC3, 0x7E, 0x7E, 0xC3, 0xC3, 0x7E, 0x3C, // 8
+            0x3C, 0x7E, 0xC3, 0xC3, 0x7F, 0x3F, 0x03, 0x03, 0x3E, 0x7C, // 9
+            0x18, 0x3C, 0x66, 0xC3, 0xC3, 0xFF, 0xFF, 0xC3, 0xC3, 0xC3, // A
+            0xFC, 0xFE, 0xC3, 0xC3, 0xFE, 0xFE, 0xC3, 0xC3, 0xFE, 0xFC, // B
+            0x3C, 0x7E, 0xC3, 0xC0, 0xC0, 0xC0, 0xC0, 0xC3, 0x7E, 0x3C, // C
+            0xFC, 0xFE, 0xC3, 0xC3, 0xC3, 0xC3, 0xC3, 0xC3, 0xFE, 0xFC, // D
+            0xFF, 0xFF, 0xC0, 0xC0, 0xFC, 0xFC, 0xC0, 0xC0, 0xFF, 0xFF, // E
+            0xFF, 0xFF, 0xC0, 0xC0, 0xFC, 0xFC, 0xC0, 0xC0, 0xC0, 0xC0 // F
+    };
+
+    /**
+     * page 0, holding the font, shared by every Rom
+     */
+    private static final byte[] FONT_PAGE = new byte[Memory.PAGE_SIZE];
+    private static final byte[] ZERO_PAGE = new byte[Memory.PAGE_SIZE];
+
+    static {
+        for (int j = 0; j < HEX_CHARS.length; j++) {
+            FONT_PAGE[j] = (byte) HEX_CHARS[j];
+        }
+        for (int j = 0; j < BIG_HEX_CHARS.length; j++) {
+            FONT_PAGE[BIG_FONT_ADDRESS + j] = (byte) BIG_HEX_CHARS[j];
+        }
+    }
+
+    private final byte[] program;
+    private final byte[][] pages;
+    /**
+     * FNV-1a of the program, 0 until first asked for
+     */
+    private long hash;
+
+    private Rom(byte[] program) {
+        this.program = program;
+        int end = Math.max(MEMORY_SIZE, LOAD_ADDRESS + program.length);
+        this.pages = new byte[(end + Memory.PAGE_SIZE - 1) / Memory.PAGE_SIZE][];
+        for (int p = 0; p < pages.length; p++) {
+            int from = p * Memory.PAGE_SIZE - LOAD_ADDRESS;
+            if (from + Memory.PAGE_SIZE <= 0 || from >= program.length) {
+                pages[p] = p == 0 ? FONT_PAGE : ZERO_PAGE;
+            } else {
+                byte[] page = new byte[Memory.PAGE_SIZE];
+                System.arraycopy(program, from, page, 0, Math.min(Memory.PAGE_SIZE, program.length - from));
+                pages[p] = page;
+            }
+        }
+    }
+
+    public static Rom of(byte[] program) {
+        Objects.requireNonNull(program, "Empty Rom!");
+        Commons.assertCondition(program.length > (MAX_MEMORY_SIZE - LOAD_ADDRESS),
+                                (Supplier<IllegalArgumentException>) () -> new IllegalArgumentException("rom is too big"));
+        return new Rom(program.clone());
+    }
+
+    /**
+     * @return a copy of the program bytes
+     */
+    public byte[] getProgram() {
+        return program.clone();
+    }
+
+    public int size() {
+        return program.length;
+    }
+
+    /**
+     * @return a 64-bit hash of the program bytes, equal programs have equal hashes
+     */
+    public long contentHash() {
+        long h = hash;
+        if (h == 0) {
+            h = 0xCBF29CE484222325L;
+            for (byte b : program) {
+                h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    boolean sameProgram(Rom other) {
+        return Arrays.equals(program, other.program);
+    }
+
+    /**
+     * the page table, pages must never be written
+     */
+    byte[][] pages() {
+        return pages;
+    }
+
+    /**
+     * @return a copy of the page table padded with zero pages to count pages
+     */
+    byte[][] pages(int count) {
+        byte[][] table = Arrays.copyOf(pages, count);
+        Arrays.fill(table, pages.length, count, ZERO_PAGE);
+        return table;
+    }
+}
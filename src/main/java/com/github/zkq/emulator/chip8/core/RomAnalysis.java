@@ -0,0 +1,438 @@
+package com.github.zkq.emulator.chip8.core;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Date:2026/10/18 21:40
+ * <p>
+ * Static analysis of a {@link Rom}: which bytes are reachable code, the basic blocks and their successors, call and
+ * jump targets, and the data regions the code points I at.
+ * <p>
+ * Code is found by recursive descent from the load address, following jumps, calls and both sides of every skip.
+ * Bnnn jumps are not followed, {@link #hasIndirectJumps()} tells when code may have been missed. Data regions are the
+ * bytes a Dxyn, Fx33, Fx55 or Fx65 reaches from an I set by Annn earlier in the same straight line; an Annn whose
+ * use is unknown marks only its target byte.
+ * <p>
+ * Results are cached by rom content, so instances of a rom seen before skip the analysis, and {@link Chip8} uses
+ * them to fill the {@link ExecutionMode#CACHED} decode cache up front.
+ *
+ * @author agent
+ */
+public final class RomAnalysis {
+
+    private static final byte INSTRUCTION = 0x01;
+    private static final byte CODE = 0x02;
+    private static final byte DATA = 0x04;
+    private static final byte BLOCK_START = 0x08;
+    private static final byte JUMP_TARGET = 0x10;
+    private static final byte CALL_TARGET = 0x20;
+
+    /**
+     * decodes every instruction of every machine, the analysis switches on {@link Opcode#standard()}
+     */
+    private static final CompatibilityProfile DECODER = CompatibilityProfile.XO_CHIP;
+
+    private static final int CACHE_SIZE = 64;
+    private static final Map<Long, RomAnalysis> CACHE = new LinkedHashMap<Long, RomAnalysis>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RomAnalysis> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final Rom rom;
+    private final byte[] image;
+    private final byte[] flags;
+    /**
+     * decoded instruction per even address, null where there is no reachable code
+     */
+    private final Instruction[] decoded;
+    private final int[] blockStarts;
+    private final int[] blockEnds;
+    private final int[] blockLasts;
+    private boolean indirectJumps;
+
+    private RomAnalysis(Rom rom) {
+        this.rom = rom;
+        byte[][] pages = rom.pages();
+        this.image = new byte[pages.length << Memory.PAGE_BITS];
+        for (int p = 0; p < pages.length; p++) {
+            System.arraycopy(pages[p], 0, image, p << Memory.PAGE_BITS, Memory.PAGE_SIZE);
+        }
+        this.flags = new byte[image.length];
+        this.decoded = new Instruction[image.length >> 1];
+        this.trace();
+
+        int count = 0;
+        int[] starts = new int[64];
+        int[] ends = new int[64];
+        int[] lasts = new int[64];
+        for (int addr = 0; addr < image.length; addr++) {
+            if ((flags[addr] & INSTRUCTION) == 0) {
+                continue;
+            }
+            if (count == 0 || (flags[addr] & BLOCK_START) != 0 || ends[count - 1] != addr) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                    lasts = Arrays.copyOf(lasts, count * 2);
+                }
+                starts[count++] = addr;
+            }
+            Opcode opcode = this.instruction(addr).opcode;
+            ends[count - 1] = addr + (opcode == Opcode.LD_I_LONG ? 4 : 2);
+            lasts[count - 1] = addr;
+            if (endsBlock(opcode)) {
+                // closed, the next instruction starts a new block
+                flags[ends[count - 1] & (image.length - 1)] |= BLOCK_START;
+            }
+        }
+        this.blockStarts = Arrays.copyOf(starts, count);
+        this.blockEnds = Arrays.copyOf(ends, count);
+        this.blockLasts = Arrays.copyOf(lasts, count);
+    }
+
+    /**
+     * @return the analysis of rom, from the cache if a rom with the same program was analyzed before
+     */
+    public static RomAnalysis of(Rom rom) {
+        Long key = rom.contentHash();
+        synchronized (CACHE) {
+            RomAnalysis cached = CACHE.get(key);
+            if (cached != null && cached.rom.sameProgram(rom)) {
+                return cached;
+            }
+        }
+        RomAnalysis analysis = new RomAnalysis(rom);
+        synchronized (CACHE) {
+            CACHE.put(key, analysis);
+        }
+        return analysis;
+    }
+
+    public static RomAnalysis of(byte[] program) {
+        return of(Rom.of(program));
+    }
+
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    public Rom getRom() {
+        return rom;
+    }
+
+    /**
+     * @return true if an instruction reachable from the load address starts at addr
+     */
+    public boolean isInstruction(int addr) {
+        return (flags[addr] & INSTRUCTION) != 0;
+    }
+
+    public boolean isCode(int addr) {
+        return (flags[addr] & CODE) != 0;
+    }
+
+    public boolean isData(int addr) {
+        return (flags[addr] & DATA) != 0;
+    }
+
+    public boolean isCallTarget(int addr) {
+        return (flags[addr] & CALL_TARGET) != 0;
+    }
+
+    public boolean isJumpTarget(int addr) {
+        return (flags[addr] & JUMP_TARGET) != 0;
+    }
+
+    /**
+     * @return true if the code uses Bnnn, whose targets are not followed
+     */
+    public boolean hasIndirectJumps() {
+        return indirectJumps;
+    }
+
+    public int getBlockCount() {
+        return blockStarts.length;
+    }
+
+    public int getBlockStart(int block) {
+        return blockStarts[block];
+    }
+
+    /**
+     * @return the address right after the last instruction of block
+     */
+    public int getBlockEnd(int block) {
+        return blockEnds[block];
+    }
+
+    /**
+     * @return the block starting at or containing addr, -1 if addr is not code
+     */
+    public int blockAt(int addr) {
+        int k = Arrays.binarySearch(blockStarts, addr);
+        if (k < 0) {
+            k = -k - 2;
+        }
+        return k >= 0 && addr < blockEnds[k] ? k : -1;
+    }
+
+    /**
+     * @return the addresses control can go to after block: jump and call targets, skip targets and the fall-through,
+     * in that order. Empty after RET, Bnnn and unknown instructions.
+     */
+    public int[] getSuccessors(int block) {
+        Instruction in = this.instruction(blockLasts[block]);
+        int next = blockEnds[block];
+        switch (in.opcode.standard()) {
+            case JP:
+                return new int[]{in.nnn};
+            case CALL:
+                return new int[]{in.nnn, next};
+            case SE_VX_BYTE:
+            case SNE_VX_BYTE:
+            case SE_VX_VY:
+            case SNE_VX_VY:
+            case SKP:
+            case SKNP:
+                return new int[]{this.skipTarget(next), next};
+            case RET:
+            case JP_V0:
+            case EXIT:
+            case UNKNOWN:
+                return new int[0];
+            default:
+                return new int[]{next};
+        }
+    }
+
+    public int[] getCallTargets() {
+        return this.collect(CALL_TARGET);
+    }
+
+    public int[] getJumpTargets() {
+        return this.collect(JUMP_TARGET);
+    }
+
+    /**
+     * Fill the decode cache of an instance with the reachable instructions on pages it has not written.
+     */
+    void prewarm(Instruction[] cache, Memory memory, CompatibilityProfile profile) {
+        for (int k = 0; k < decoded.length && k < cache.length; k++) {
+            int addr = k << 1;
+            Instruction in = decoded[k];
+            if (in != null && memory.isShared(addr) && memory.isShared(addr + 1)) {
+                Opcode opcode = profile.map(Opcode.decode(in.op));
+                cache[k] = opcode == in.opcode ? in : Instruction.decode(in.op, profile);
+            }
+        }
+    }
+
+    /**
+     * @return a listing of the program: labels, instructions, and the remaining bytes as data
+     */
+    public String disassemble() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("; %d bytes, hash %016x, %d blocks, %d subroutines%s%n", rom.size(),
+                                rom.contentHash(), blockStarts.length, this.getCallTargets().length,
+                                indirectJumps ? ", indirect jumps" : ""));
+        int end = Rom.LOAD_ADDRESS + rom.size();
+        int addr = Rom.LOAD_ADDRESS;
+        while (addr < end) {
+            if (this.isCallTarget(addr)) {
+                sb.append(String.format("sub_%03X:%n", addr));
+            } else if ((flags[addr] & (JUMP_TARGET | BLOCK_START)) != 0 && this.isInstruction(addr)) {
+                sb.append(String.format("L_%03X:%n", addr));
+            }
+            if (this.isInstruction(addr)) {
+                Instruction in = this.instruction(addr);
+                if (in.opcode == Opcode.LD_I_LONG && addr + 3 < image.length) {
+                    int nnnn = (image[addr + 2] & 0xFF) << 8 | image[addr + 3] & 0xFF;
+                    sb.append(String.format("  %03X  %04X  LD I, 0x%04X%n", addr, in.op, nnnn));
+                    addr += 4;
+                    continue;
+                }
+                sb.append(String.format("  %03X  %04X  %s%n", addr, in.op, in.toAssembly()));
+                addr += 2;
+                continue;
+            }
+            // a run of non-code bytes, at most 8 per line
+            sb.append(String.format("  %03X  db", addr));
+            boolean referenced = false;
+            int n = 0;
+            while (addr < end && n < 8 && !this.isInstruction(addr) && !this.isCode(addr)) {
+                sb.append(String.format(" %02X", image[addr] & 0xFF));
+                referenced |= this.isData(addr);
+                addr++;
+                n++;
+            }
+            if (n == 0) {
+                // the second byte of an instruction starting at an odd address
+                sb.append(String.format(" %02X", image[addr] & 0xFF));
+                addr++;
+            }
+            sb.append(referenced ? String.format("  ; data%n") : String.format("%n"));
+        }
+        return sb.toString();
+    }
+
+    private void trace() {
+        // every instruction is decoded once and pushes at most one address
+        int[] work = new int[image.length + 1];
+        int top = 0;
+        work[top++] = Rom.LOAD_ADDRESS;
+        flags[Rom.LOAD_ADDRESS] |= BLOCK_START;
+        while (top > 0) {
+            int addr = work[--top];
+            // I as set by the last Annn on this straight line, -1 if unknown
+            int i = -1;
+            while (addr + 1 < image.length && (flags[addr] & INSTRUCTION) == 0) {
+                Instruction in = this.decode(addr);
+                int next = addr + 2;
+                boolean stop = false;
+                switch (in.opcode.standard()) {
+                    case JP:
+                        this.target(in.nnn, JUMP_TARGET);
+                        work[top++] = in.nnn;
+                        stop = true;
+                        break;
+                    case CALL:
+                        this.target(in.nnn, CALL_TARGET);
+                        work[top++] = in.nnn;
+                        break;
+                    case RET:
+                    case EXIT:
+                    case UNKNOWN:
+                        stop = true;
+                        break;
+                    case JP_V0:
+                        indirectJumps = true;
+                        stop = true;
+                        break;
+                    case SE_VX_BYTE:
+                    case SNE_VX_BYTE:
+                    case SE_VX_VY:
+                    case SNE_VX_VY:
+                    case SKP:
+                    case SKNP:
+                        int skip = this.skipTarget(next);
+                        if (skip + 1 < image.length) {
+                            flags[skip] |= BLOCK_START;
+                            work[top++] = skip;
+                        }
+                        break;
+                    case LD_I:
+                        i = in.nnn;
+                        flags[i] |= DATA;
+                        break;
+                    case LD_I_LONG:
+                        // XO-CHIP, the address is the next word
+                        if (next + 1 < image.length) {
+                            flags[next] |= CODE;
+                            flags[next + 1] |= CODE;
+                            i = (image[next] & 0xFF) << 8 | image[next + 1] & 0xFF;
+                            // may point past the program image, into memory only the machine has
+                            this.data(i, 1);
+                            next += 2;
+                        }
+                        break;
+                    case ADD_I_VX:
+                    case LD_F_VX:
+                        i = -1;
+                        break;
+                    case DRW:
+                        this.data(i, in.op & 0xF);
+                        break;
+                    case LD_B_VX:
+                        this.data(i, 3);
+                        break;
+                    case LD_I_VX:
+                    case LD_VX_I:
+                        this.data(i, in.x + 1);
+                        break;
+                    default:
+                        break;
+                }
+                if (stop) {
+                    break;
+                }
+                addr = next;
+            }
+        }
+    }
+
+    /**
+     * @return where a skip in front of the instruction at next lands, past both words of an XO-CHIP F000 nnnn
+     */
+    private int skipTarget(int next) {
+        boolean longInstruction = next + 1 < image.length && image[next] == (byte) 0xF0 && image[next + 1] == 0;
+        return longInstruction ? next + 4 : next + 2;
+    }
+
+    private Instruction decode(int addr) {
+        Instruction in = Instruction.decode((image[addr] & 0xFF) << 8 | image[addr + 1] & 0xFF, DECODER);
+        flags[addr] |= INSTRUCTION | CODE;
+        flags[addr + 1] |= CODE;
+        if ((addr & 1) == 0) {
+            decoded[addr >> 1] = in;
+        }
+        return in;
+    }
+
+    private Instruction instruction(int addr) {
+        Instruction in = (addr & 1) == 0 ? decoded[addr >> 1] : null;
+        return in != null ? in : Instruction.decode((image[addr] & 0xFF) << 8 | image[addr + 1] & 0xFF, DECODER);
+    }
+
+    private void target(int addr, byte kind) {
+        flags[addr] |= (byte) (kind | BLOCK_START);
+    }
+
+    private void data(int from, int length) {
+        if (from < 0) {
+            return;
+        }
+        for (int a = from; a < from + length && a < image.length; a++) {
+            flags[a] |= DATA;
+        }
+    }
+
+    private int[] collect(int kind) {
+        int count = 0;
+        int[] found = new int[16];
+        for (int addr = 0; addr < flags.length; addr++) {
+            if ((flags[addr] & kind) != 0) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = addr;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private static boolean endsBlock(Opcode opcode) {
+        switch (opcode) {
+            case JP:
+            case CALL:
+            case RET:
+            case JP_V0:
+            case EXIT:
+            case UNKNOWN:
+            case SE_VX_BYTE:
+            case SNE_VX_BYTE:
+            case SE_VX_VY:
+            case SNE_VX_VY:
+            case SKP:
+            case SKNP:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
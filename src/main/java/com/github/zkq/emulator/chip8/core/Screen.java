@@ -1,49 +1,144 @@
 package com.github.zkq.emulator.chip8.core;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Observable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Date:2020/3/31 11:03
  *
  * @author zhoukq
  */
-public class Screen extends Observable {
+public class Screen {
     public static final int HIGH = 32;
     public static final int WIDTH = 64;
-    private boolean[][] pixels;
+    /**
+     * one long per row, bit 63 is the leftmost pixel (x = 0)
+     */
+    private final long[] rows;
+    /**
+     * changes since the last {@link #publishFrame()}, only touched by the emulation thread
+     */
+    private int dirtyRows;
+    private long dirtyColumns;
+    private final List<ScreenListener> listeners = new CopyOnWriteArrayList<>();
 
     public Screen() {
-        this.pixels = new boolean[WIDTH][HIGH];
+        this.rows = new long[HIGH];
     }
 
-    boolean xorPixel(int x, int y, boolean value) {
-        boolean b = this.pixels[x][y];
-        this.pixels[x][y] ^= value;
-        return b & value;
+    /**
+     * @return the width in pixels of the current display mode
+     */
+    public int getWidth() {
+        return WIDTH;
     }
 
-    public boolean[][] getPixels() {
-        return pixels;
+    /**
+     * @return the height in pixels of the current display mode
+     */
+    public int getHeight() {
+        return HIGH;
     }
 
-    void clear() {
-        for (boolean[] pixel : this.pixels) {
-            Arrays.fill(pixel, false);
+    public boolean getPixel(int x, int y) {
+        return (this.rows[y] << x) < 0;
+    }
+
+    /**
+     * @return the packed pixels of row y, bit 63 is the leftmost pixel
+     */
+    public long getRow(int y) {
+        return this.rows[y];
+    }
+
+    /**
+     * copy all packed rows into dst, dst must hold at least {@link #HIGH} longs
+     */
+    public void copyRows(long[] dst) {
+        System.arraycopy(this.rows, 0, dst, 0, HIGH);
+    }
+
+    /**
+     * @return the number of bytes {@link #writeTo(ByteBuffer)} writes
+     */
+    int stateSize() {
+        return HIGH * Long.BYTES;
+    }
+
+    void writeTo(ByteBuffer dst) {
+        for (long row : this.rows) {
+            dst.putLong(row);
         }
     }
 
-    public boolean xorPixels(int x, int y, byte pixels) {
-        boolean r = false;
-        for (int size = Byte.SIZE - 1; size >= 0; size--) {
-            if (xorPixel(x + size, y, (pixels & 0x1) == 1)) {
-                r = true;
+    void readFrom(ByteBuffer src) {
+        for (int y = 0; y < HIGH; y++) {
+            this.rows[y] = src.getLong();
+        }
+        this.dirtyRows = -1;
+        this.dirtyColumns = -1L;
+    }
+
+    void clear() {
+        for (int y = 0; y < HIGH; y++) {
+            long row = this.rows[y];
+            if (row != 0) {
+                this.dirtyRows |= 1 << y;
+                this.dirtyColumns |= row;
             }
-            pixels >>= 1;
         }
-        super.notifyObservers();
-        return r;
+        Arrays.fill(this.rows, 0L);
+    }
+
+    /**
+     * record a change for the next {@link #publishFrame()}, in the coordinates of the 64x32 row view
+     */
+    void markDirty(int rows, long columns) {
+        this.dirtyRows |= rows;
+        this.dirtyColumns |= columns;
+    }
+
+    public void addListener(ScreenListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(ScreenListener listener) {
+        this.listeners.remove(listener);
     }
 
+    /**
+     * Tell the listeners what changed since the last call, if anything did. {@link Chip8#runFrame()} calls this at
+     * the end of every frame, callers driving {@link Chip8#step(int)} themselves call it once per frame.
+     */
+    public void publishFrame() {
+        int rows = this.dirtyRows;
+        if (rows == 0) {
+            return;
+        }
+        long columns = this.dirtyColumns;
+        this.dirtyRows = 0;
+        this.dirtyColumns = 0;
+        for (ScreenListener listener : this.listeners) {
+            listener.frameChanged(this, rows, columns);
+        }
+    }
 
+    /**
+     * XOR one sprite row onto the screen, wrapping around both edges.
+     *
+     * @return true if any pixel was erased
+     */
+    public boolean xorPixels(int x, int y, byte pixels) {
+        long sprite = Long.rotateRight((pixels & 0xFFL) << 56, x & (WIDTH - 1));
+        int row = y & (HIGH - 1);
+        boolean r = (this.rows[row] & sprite) != 0;
+        this.rows[row] ^= sprite;
+        if (sprite != 0) {
+            this.dirtyRows |= 1 << row;
+            this.dirtyColumns |= sprite;
+        }
+        return r;
+    }
 }
@@ -0,0 +1,18 @@
+package com.github.zkq.emulator.chip8.core;
+
+/**
+ * Date:2026/10/18 17:05
+ * <p>
+ * Receives at most one event per frame, on the emulation thread, when the screen changed during that frame.
+ *
+ * @author agent
+ */
+@FunctionalInterface
+public interface ScreenListener {
+
+    /**
+     * @param dirtyRows    bit y set if row y changed
+     * @param dirtyColumns bit 63 - x set if column x changed in any of the dirty rows
+     */
+    void frameChanged(Screen screen, int dirtyRows, long dirtyColumns);
+}
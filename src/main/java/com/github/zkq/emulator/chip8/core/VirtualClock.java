@@ -0,0 +1,120 @@
+package com.github.zkq.emulator.chip8.core;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Date:2026/10/18 11:40
+ * <p>
+ * Paces a {@link Chip8} in real time: one wake-up per 60 Hz frame, each frame running
+ * {@link Chip8#getCyclesPerFrame()} instructions and ticking the timers once.
+ * <p>
+ * Frames are scheduled against {@link System#nanoTime()}, not against the previous wake-up, so host jitter does not
+ * accumulate. A late wake-up runs the missed frames back to back, up to {@code maxCatchUp}; anything beyond that is
+ * skipped, so a stalled host slows emulation down instead of making it race afterwards.
+ * <p>
+ * While the program waits for a key or spins in an idle loop with no timer running, the clock parks until the next
+ * key event instead of running frames that change nothing, see {@link Chip8#isWaitingForInput()}.
+ *
+ * @author agent
+ */
+public final class VirtualClock implements Runnable {
+
+    public static final int FRAME_RATE = 60;
+    public static final long FRAME_NANOS = 1_000_000_000L / FRAME_RATE;
+    private static final int DEFAULT_MAX_CATCH_UP = 5;
+
+    private final Chip8 chip8;
+    private final int maxCatchUp;
+
+    private volatile boolean running;
+    /**
+     * set by {@link #stop()}, possibly before {@link #run()} started
+     */
+    private volatile boolean stopped;
+    private volatile Thread runner;
+    private volatile long frames;
+    private volatile long skippedFrames;
+    private volatile long idleNanos;
+
+    public VirtualClock(Chip8 chip8) {
+        this(chip8, DEFAULT_MAX_CATCH_UP);
+    }
+
+    public VirtualClock(Chip8 chip8, int maxCatchUp) {
+        if (maxCatchUp < 1) {
+            throw new IllegalArgumentException("maxCatchUp must be positive");
+        }
+        this.chip8 = chip8;
+        this.maxCatchUp = maxCatchUp;
+    }
+
+    @Override
+    public void run() {
+        running = true;
+        runner = Thread.currentThread();
+        long origin = System.nanoTime();
+        // frames accounted for since origin, either run or skipped
+        long frame = 0;
+        while (!stopped) {
+            long due = (System.nanoTime() - origin) / FRAME_NANOS + 1;
+            long behind = due - frame;
+            if (behind > maxCatchUp) {
+                skippedFrames += behind - maxCatchUp;
+                frame += behind - maxCatchUp;
+            }
+            while (frame < due && !stopped) {
+                chip8.runFrame();
+                frame++;
+                frames++;
+            }
+            if (chip8.isWaitingForInput()) {
+                long parked = System.nanoTime();
+                chip8.awaitInput(Long.MAX_VALUE);
+                idleNanos += System.nanoTime() - parked;
+                // resume on a fresh schedule, the parked time is not owed
+                origin = System.nanoTime() - FRAME_NANOS;
+                frame = 0;
+                continue;
+            }
+            LockSupport.parkNanos(this, origin + frame * FRAME_NANOS - System.nanoTime());
+        }
+        runner = null;
+        running = false;
+    }
+
+    /**
+     * ask {@link #run()} to return after the current frame
+     */
+    public void stop() {
+        stopped = true;
+        Thread t = runner;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return frames run so far
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return frames dropped because the host fell more than maxCatchUp frames behind
+     */
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * @return time spent parked waiting for input
+     */
+    public long getIdleNanos() {
+        return idleNanos;
+    }
+}
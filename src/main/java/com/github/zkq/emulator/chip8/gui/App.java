@@ -1,82 +1,129 @@
-package com.github.zkq.emulator.chip8.gui;/**
- * Date:2020/4/15 15:45
- *
- * @author zhoukq
- */
+package com.github.zkq.emulator.chip8.gui;
 
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.CompatibilityProfile;
+import com.github.zkq.emulator.chip8.core.ExecutionMode;
+import com.github.zkq.emulator.chip8.core.ExtendedScreen;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Rom;
+import com.github.zkq.emulator.chip8.core.Screen;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
-import javafx.scene.Group;
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.Scene;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.ArcType;
 import javafx.stage.Stage;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
 
+/**
+ * Date:2020/4/15 15:45
+ * <p>
+ * The JavaFX front end. The image shown is a {@link WritableImage} over a {@link PixelBuffer} wrapping a direct
+ * {@link IntBuffer}: once per pulse, and only if the emulator published a new frame, {@link PixelFrames} expands it
+ * straight into that buffer on the FX thread, and the scene graph uploads the region that changed. The
+ * {@link ImageView} scales it without smoothing, so pixels stay square at any window size.
+ *
+ * @author zhoukq
+ */
 public class App extends Application {
 
+    private static final int SCALE = 10;
 
+    private final PixelFrames frames = new PixelFrames();
+    private final IntBuffer pixels = ByteBuffer.allocateDirect(ExtendedScreen.MAX_WIDTH * ExtendedScreen.MAX_HIGH * 4)
+                                               .order(ByteOrder.nativeOrder()).asIntBuffer();
+    private final PixelBuffer<IntBuffer> pixelBuffer = new PixelBuffer<>(ExtendedScreen.MAX_WIDTH,
+                                                                         ExtendedScreen.MAX_HIGH, pixels,
+                                                                         PixelFormat.getIntArgbPreInstance());
+    private final ImageView view = new ImageView(new WritableImage(pixelBuffer));
+    private Chip8 chip8;
+
+    /**
+     * usage: App rom [INTERPRETER|CACHED|RECOMPILER] [profile]
+     */
     public static void main(String[] args) {
         launch(args);
     }
 
+    @Override
+    public void init() throws IOException {
+        List<String> args = getParameters().getRaw();
+        if (args.isEmpty()) {
+            throw new IllegalArgumentException("usage: App rom [INTERPRETER|CACHED|RECOMPILER] [profile]");
+        }
+        byte[] rom = Files.readAllBytes(Paths.get(args.get(0)));
+        ExecutionMode mode = args.size() > 1 ? ExecutionMode.valueOf(args.get(1)) : ExecutionMode.CACHED;
+        CompatibilityProfile profile = args.size() > 2 ? CompatibilityProfile.valueOf(args.get(2))
+                                                       : CompatibilityProfile.DEFAULT;
+        chip8 = new Chip8(Rom.of(rom), profile.getMachine().createScreen(), new Keyboard(), mode, profile);
+    }
+
     @Override
     public void start(Stage primaryStage) {
-        primaryStage.setTitle("Drawing Operations Test");
-        Group root = new Group();
-        Canvas canvas = new Canvas(300, 250);
-        GraphicsContext gc = canvas.getGraphicsContext2D();
-        drawShapes(gc);
-        root.getChildren().add(canvas);
-        primaryStage.setScene(new Scene(root));
-        primaryStage.show();
-        //primaryStage.setResizable(false);
-        primaryStage.widthProperty().addListener((observable, oldValue, newValue) -> {
-            System.out.println("oldValue = " + oldValue);
-            System.out.println("newValue = " + newValue);
-        });
-        primaryStage.heightProperty().addListener((observable, oldValue, newValue) -> {
-            System.out.println("oldValue = " + oldValue);
-            System.out.println("newValue = " + newValue);
+        Screen screen = chip8.getScreen();
+        Keyboard keyboard = chip8.getKeyboard();
+        frames.publish(screen);
+        screen.addListener(frames);
+        this.present();
+
+        view.setSmooth(false);
+        view.setPreserveRatio(true);
+        StackPane root = new StackPane(view);
+        root.setBackground(Background.fill(Color.BLACK));
+        root.setMinSize(0, 0);
+        view.fitWidthProperty().bind(root.widthProperty());
+        view.fitHeightProperty().bind(root.heightProperty());
+
+        Scene scene = new Scene(root, Screen.WIDTH * SCALE, Screen.HIGH * SCALE);
+        scene.setOnKeyPressed(e -> keyboard.pressKey(e.getCode().getCode()));
+        scene.setOnKeyReleased(e -> keyboard.releaseKey(e.getCode().getCode()));
+
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                present();
+            }
+        }.start();
+
+        primaryStage.setTitle("Chip 8");
+        primaryStage.setScene(scene);
+        primaryStage.setOnCloseRequest(e -> {
+            chip8.pause();
+            Platform.exit();
         });
+        primaryStage.show();
+        chip8.start();
     }
 
-    private void drawShapes(GraphicsContext gc) {
-        gc.setFill(Color.GREEN);
-        gc.setStroke(Color.BLUE);
-        gc.setLineWidth(5);
-        //gc.fillPolygon();
-        //gc.strokeLine(40, 10, 10, 40);
-        //gc.fillOval(10, 60, 30, 30);
-        //gc.strokeOval(60, 60, 30, 30);
-        //gc.fillRoundRect(110, 60, 30, 30, 10, 10);
-        //gc.strokeRoundRect(160, 60, 30, 30, 10, 10);
-        //gc.fillArc(10, 110, 30, 30, 45, 240, ArcType.OPEN);
-        //gc.fillArc(60, 110, 30, 30, 45, 240, ArcType.CHORD);
-        //gc.fillArc(110, 110, 30, 30, 45, 240, ArcType.ROUND);
-        //gc.strokeArc(10, 160, 30, 30, 45, 240, ArcType.OPEN);
-        //gc.strokeArc(60, 160, 30, 30, 45, 240, ArcType.CHORD);
-        //gc.strokeArc(110, 160, 30, 30, 45, 240, ArcType.ROUND);
-        gc.fillRect(20,30,20,20);
-        gc.setFill(Color.BLACK);
-        gc.fillPolygon(new double[]{10, 40, 40, 10},
-                       new double[]{210, 210, 240, 240}, 4);
-        ScheduledExecutorService pool = Executors.newScheduledThreadPool(1);
-        pool.schedule(() -> {
-            Canvas canvas = gc.getCanvas();
-            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-            pool.shutdown();
-        }, 2, TimeUnit.SECONDS);
-        //gc.strokePolygon(new double[]{60, 90, 60, 90},
-        //                 new double[]{210, 210, 240, 240}, 4);
-        //gc.strokePolyline(new double[]{110, 140, 110, 140},
-        //                  new double[]{210, 210, 240, 240}, 4);
+    /**
+     * Copy the newest frame into the pixel buffer if there is one. FX thread only.
+     */
+    private void present() {
+        if (!frames.hasFrame()) {
+            return;
+        }
+        pixelBuffer.updateBuffer(buffer -> {
+            frames.update(pixels, ExtendedScreen.MAX_WIDTH);
+            return new Rectangle2D(0, 0, frames.getWidth(), frames.getHeight());
+        });
+        Rectangle2D viewport = view.getViewport();
+        if (viewport == null || viewport.getWidth() != frames.getWidth()
+                || viewport.getHeight() != frames.getHeight()) {
+            view.setViewport(new Rectangle2D(0, 0, frames.getWidth(), frames.getHeight()));
+        }
     }
-
-
 }
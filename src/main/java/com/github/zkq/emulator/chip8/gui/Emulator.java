@@ -6,65 +6,134 @@ import com.github.zkq.emulator.chip8.core.Screen;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Date:2020/4/14 11:26
+ * <p>
+ * The Swing front end. A render thread sleeps until the emulator publishes a changed frame or the window needs
+ * repainting, then draws it with a {@link SwingRenderer} through the {@link BufferStrategy} of a canvas, so an idle
+ * screen costs no CPU and the event dispatch thread never paints frames.
  *
  * @author zhoukq
  */
-public class Emulator extends JFrame {
-
-    private static final int E_HEIGHT = Screen.HIGH * 5;
-    private static final int E_WIDTH = Screen.WIDTH * 5;
-
-    public Emulator() {
+@SuppressWarnings("serial") // a window, never serialized
+public final class Emulator extends JFrame {
+
+    private static final int SCALE = 10;
+    private static final int E_HEIGHT = Screen.HIGH * SCALE;
+    private static final int E_WIDTH = Screen.WIDTH * SCALE;
+
+    private final Chip8 chip8;
+    private final PixelFrames frames = new PixelFrames();
+    private final SwingRenderer renderer = new SwingRenderer(frames);
+    private final Display canvas = new Display();
+    private final Thread renderThread;
+    /**
+     * set by every published frame and every repaint AWT asks for, cleared by the render thread before it blits
+     */
+    private final AtomicBoolean damaged = new AtomicBoolean(true);
+
+    public Emulator(Chip8 chip8) {
         super("Chip 8 ");
-        Keyboard keyboard = new Keyboard();
-        Screen screen = new Screen();
-
-        Canvas canvas = new Canvas();
-
-        Container panel = this.getContentPane();
-
+        this.chip8 = chip8;
+        Keyboard keyboard = chip8.getKeyboard();
+        Screen screen = chip8.getScreen();
+
+        canvas.setPreferredSize(new Dimension(E_WIDTH, E_HEIGHT));
+        canvas.setBackground(Color.BLACK);
+        canvas.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                keyboard.pressKey(e.getKeyCode());
+            }
+
+            @Override
+            public void keyReleased(KeyEvent e) {
+                keyboard.releaseKey(e.getKeyCode());
+            }
+        });
+        canvas.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                requestRender();
+            }
+        });
+        this.getContentPane().add(canvas);
 
         this.pack();
         setLocationRelativeTo(null);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setVisible(true);
-
+        canvas.createBufferStrategy(2);
+        canvas.requestFocusInWindow();
+
+        frames.publish(screen);
+        screen.addListener(frames);
+        this.renderThread = new Thread(this::renderLoop, "render thread");
+        renderThread.setDaemon(true);
+        renderThread.start();
+        screen.addListener((s, dirtyRows, dirtyColumns) -> requestRender());
     }
 
-    public static void main(String[] args) {
-        JFrame jf = new JFrame("用户登录");
-        jf.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+    public Chip8 getChip8() {
+        return chip8;
+    }
 
-        // 第 1 个 JPanel, 使用默认的浮动布局
-        JPanel panel01 = new JPanel();
-        panel01.add(new JLabel("用户名"));
-        panel01.add(new JTextField(10));
+    private void requestRender() {
+        damaged.set(true);
+        Thread t = renderThread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
 
-        // 第 2 个 JPanel, 使用默认的浮动布局
-        JPanel panel02 = new JPanel();
-        panel02.add(new JLabel("密   码"));
-        panel02.add(new JPasswordField(10));
+    private void renderLoop() {
+        BufferStrategy strategy = canvas.getBufferStrategy();
+        while (isDisplayable()) {
+            // clear the flag in the same step that reads it, a repaint asked for after this blits again
+            boolean repaint = damaged.getAndSet(false);
+            if (renderer.update() | repaint) {
+                this.show(strategy);
+            }
+            LockSupport.park(this);
+        }
+    }
 
-        // 第 3 个 JPanel, 使用浮动布局, 并且容器内组件居中显示
-        JPanel panel03 = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        panel03.add(new JButton("登录"));
-        panel03.add(new JButton("注册"));
+    private void show(BufferStrategy strategy) {
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    renderer.paint(g, canvas.getWidth(), canvas.getHeight());
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
 
-        // 创建一个垂直盒子容器, 把上面 3 个 JPanel 串起来作为内容面板添加到窗口
-        Box vBox = Box.createVerticalBox();
-        vBox.add(panel01);
-        vBox.add(panel02);
-        vBox.add(panel03);
+    /**
+     * Hands the repaints AWT asks for to the render thread instead of clearing and painting on the event thread.
+     */
+    private final class Display extends Canvas {
 
-        jf.setContentPane(vBox);
+        @Override
+        public void paint(Graphics g) {
+            requestRender();
+        }
 
-        jf.pack();
-        jf.setLocationRelativeTo(null);
-        jf.setVisible(true);
+        @Override
+        public void update(Graphics g) {
+            requestRender();
+        }
     }
-
-
 }
@@ -0,0 +1,161 @@
+package com.github.zkq.emulator.chip8.gui;
+
+import com.github.zkq.emulator.chip8.core.ExtendedScreen;
+import com.github.zkq.emulator.chip8.core.FrameExchange;
+import com.github.zkq.emulator.chip8.core.Screen;
+import com.github.zkq.emulator.chip8.core.ScreenListener;
+
+import java.nio.IntBuffer;
+
+/**
+ * Date:2026/10/18 23:30
+ * <p>
+ * Hands full resolution frames from the emulation thread to a render thread and turns them into ARGB pixels.
+ * <p>
+ * The frames go through a {@link FrameExchange} of packed rows that keep both planes of an {@link ExtendedScreen} at
+ * 128x64, so the emulation thread only copies a few hundred bytes per changed frame. The render thread expands the newest frame into an int[] or a direct buffer once, in
+ * {@link #update(IntBuffer, int)}, whatever the toolkit draws those pixels with.
+ *
+ * @author agent
+ */
+public final class PixelFrames implements ScreenListener {
+
+    /**
+     * off, plane 0, plane 1, both planes
+     */
+    public static final int[] DEFAULT_PALETTE = {0xFF000000, 0xFFFFFFFF, 0xFFAA4400, 0xFF888888};
+
+    /**
+     * longs per row
+     */
+    private static final int WORDS = 2;
+    private static final int PLANE_WORDS = ExtendedScreen.MAX_HIGH * WORDS;
+
+    private final FrameExchange<Frame> exchange = new FrameExchange<>(Frame::new, PixelFrames::fill);
+    private final int[] palette;
+
+    public PixelFrames() {
+        this(DEFAULT_PALETTE);
+    }
+
+    /**
+     * @param palette the ARGB color of each combination of planes, bit p of the index set if plane p is
+     */
+    public PixelFrames(int[] palette) {
+        if (palette.length != 1 << ExtendedScreen.PLANES) {
+            throw new IllegalArgumentException("palette must have 4 entries");
+        }
+        this.palette = palette.clone();
+    }
+
+    /**
+     * Publish the current screen content. Producer thread only.
+     */
+    public void publish(Screen screen) {
+        exchange.publish(screen);
+    }
+
+    @Override
+    public void frameChanged(Screen screen, int dirtyRows, long dirtyColumns) {
+        this.publish(screen);
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @return true if a frame was published since the last {@link #update(IntBuffer, int)}
+     */
+    public boolean hasFrame() {
+        return exchange.hasFrame();
+    }
+
+    /**
+     * @see #update(IntBuffer, int)
+     */
+    public boolean update(int[] pixels, int stride) {
+        return this.update(IntBuffer.wrap(pixels), stride);
+    }
+
+    /**
+     * Expand the newest frame into pixels if one was published since the last call. Consumer thread only.
+     *
+     * @param pixels ARGB pixels from index 0, row y starting at y * stride, at least
+     *               {@link ExtendedScreen#MAX_WIDTH} wide and {@link ExtendedScreen#MAX_HIGH} high
+     * @return true if pixels changed
+     */
+    public boolean update(IntBuffer pixels, int stride) {
+        Frame frame = exchange.poll();
+        if (frame == null) {
+            return false;
+        }
+        long[] bits = frame.bits;
+        int words = frame.width >>> 6;
+        for (int y = 0; y < frame.height; y++) {
+            for (int word = 0; word < words; word++) {
+                int at = y * WORDS + word;
+                long low = bits[at];
+                long high = frame.planes > 1 ? bits[PLANE_WORDS + at] : 0L;
+                int offset = y * stride + (word << 6);
+                for (int x = 0; x < 64; x++) {
+                    int shift = 63 - x;
+                    pixels.put(offset + x, palette[(int) (low >>> shift & 1 | (high >>> shift & 1) << 1)]);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the width in pixels of the frame last expanded by {@link #update(IntBuffer, int)}
+     */
+    public int getWidth() {
+        return exchange.current().width;
+    }
+
+    /**
+     * @return the height in pixels of the frame last expanded by {@link #update(IntBuffer, int)}
+     */
+    public int getHeight() {
+        return exchange.current().height;
+    }
+
+    /**
+     * @return the ARGB color of pixels no plane sets
+     */
+    public int getBackground() {
+        return palette[0];
+    }
+
+    /**
+     * the full resolution rows of both planes, on the emulation thread
+     */
+    private static void fill(Screen screen, Frame frame) {
+        frame.width = screen.getWidth();
+        frame.height = screen.getHeight();
+        long[] bits = frame.bits;
+        if (screen instanceof ExtendedScreen) {
+            ExtendedScreen extended = (ExtendedScreen) screen;
+            int words = frame.width >>> 6;
+            frame.planes = ExtendedScreen.PLANES;
+            for (int p = 0; p < ExtendedScreen.PLANES; p++) {
+                for (int y = 0; y < frame.height; y++) {
+                    for (int word = 0; word < words; word++) {
+                        bits[p * PLANE_WORDS + y * WORDS + word] = extended.getRow(p, y, word);
+                    }
+                }
+            }
+        } else {
+            frame.planes = 1;
+            for (int y = 0; y < Screen.HIGH; y++) {
+                bits[y * WORDS] = screen.getRow(y);
+            }
+        }
+    }
+
+    private static final class Frame {
+        private final long[] bits = new long[ExtendedScreen.PLANES * PLANE_WORDS];
+        private int width = Screen.WIDTH;
+        private int height = Screen.HIGH;
+        private int planes = 1;
+    }
+}
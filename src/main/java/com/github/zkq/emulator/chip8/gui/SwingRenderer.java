@@ -0,0 +1,80 @@
+package com.github.zkq.emulator.chip8.gui;
+
+import com.github.zkq.emulator.chip8.core.ExtendedScreen;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Date:2026/10/18 23:45
+ * <p>
+ * Draws the frames of a {@link PixelFrames} with Java2D. The pixels go straight into the int[] behind one
+ * {@link BufferedImage}, which is blitted with a single scaled {@code drawImage}, so a frame costs the same at any
+ * window size. Needs no window: {@link #render(BufferedImage)} draws into an offscreen image.
+ *
+ * @author agent
+ */
+public final class SwingRenderer {
+
+    private final PixelFrames frames;
+    private final BufferedImage image = new BufferedImage(ExtendedScreen.MAX_WIDTH, ExtendedScreen.MAX_HIGH,
+                                                          BufferedImage.TYPE_INT_RGB);
+    private final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    private final Color background;
+
+    public SwingRenderer(PixelFrames frames) {
+        this.frames = frames;
+        this.background = new Color(frames.getBackground());
+    }
+
+    /**
+     * Take the newest frame, if any. Render thread only.
+     *
+     * @return true if the image changed since the last call
+     */
+    public boolean update() {
+        return frames.update(pixels, ExtendedScreen.MAX_WIDTH);
+    }
+
+    /**
+     * Draw the current frame centered on a width x height area, scaled by a whole factor when it fits once, with
+     * nearest neighbour filtering.
+     */
+    public void paint(Graphics2D g, int width, int height) {
+        int w = frames.getWidth();
+        int h = frames.getHeight();
+        double scale = Math.min((double) width / w, (double) height / h);
+        if (scale >= 1) {
+            scale = Math.floor(scale);
+        }
+        int dw = (int) (w * scale);
+        int dh = (int) (h * scale);
+        int dx = (width - dw) / 2;
+        int dy = (height - dh) / 2;
+        if (dw < width || dh < height) {
+            g.setColor(background);
+            g.fillRect(0, 0, width, height);
+        }
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(image, dx, dy, dx + dw, dy + dh, 0, 0, w, h, null);
+    }
+
+    /**
+     * {@link #update()} then {@link #paint(Graphics2D, int, int)} over the whole of target.
+     *
+     * @return target
+     */
+    public BufferedImage render(BufferedImage target) {
+        this.update();
+        Graphics2D g = target.createGraphics();
+        try {
+            this.paint(g, target.getWidth(), target.getHeight());
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+}
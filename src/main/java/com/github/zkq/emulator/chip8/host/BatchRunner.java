@@ -0,0 +1,153 @@
+package com.github.zkq.emulator.chip8.host;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Date:2026/10/18 12:20
+ * <p>
+ * Runs any number of {@link Chip8} instances, uncapped, on a fixed work-stealing pool.
+ * <p>
+ * Every task runs one frame of one instance and then puts the instance at the back of the queue, so instances take
+ * turns frame by frame no matter how many there are. The pool runs in FIFO mode, idle workers steal from busy ones.
+ * An instance running until cancelled that waits for a key with no timer running is not requeued, a key event on its
+ * keyboard or {@link Session#cancel()} requeues it. An instance with a frame count keeps taking its turns while it
+ * waits, each such frame is a few instructions, so its session always completes after that many frames.
+ *
+ * @author agent
+ */
+public class BatchRunner implements AutoCloseable {
+
+    private final ForkJoinPool pool;
+    private final LongAdder totalCycles = new LongAdder();
+    private final LongAdder totalFrames = new LongAdder();
+
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchRunner(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+
+    /**
+     * Start running chip8 for the given number of frames, {@link Long#MAX_VALUE} runs it until cancelled.
+     * Frames spent waiting for input count, the session completes after that many frames whether or not a key
+     * arrives. The instance must not be driven by anything else meanwhile.
+     */
+    public Session submit(Chip8 chip8, long frames) {
+        Objects.requireNonNull(chip8, "Empty Chip8!");
+        Session session = new Session(chip8, frames);
+        chip8.getKeyboard().addListener(session.wakeUp);
+        pool.execute(session);
+        return session;
+    }
+
+    public long getTotalCycles() {
+        return totalCycles.sum();
+    }
+
+    public long getTotalFrames() {
+        return totalFrames.sum();
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    public final class Session implements Runnable {
+        private final Chip8 chip8;
+        private final long targetFrames;
+        private final CompletableFuture<Session> completion = new CompletableFuture<>();
+        /**
+         * set while the session is out of the queue waiting for a key event
+         */
+        private final AtomicBoolean parked = new AtomicBoolean();
+        private final Runnable wakeUp = this::wake;
+        // written by whichever worker currently runs the session, one at a time
+        private volatile long cycles;
+        private volatile long frames;
+        private volatile boolean cancelled;
+
+        private Session(Chip8 chip8, long targetFrames) {
+            this.chip8 = chip8;
+            this.targetFrames = targetFrames;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled || frames >= targetFrames) {
+                chip8.getKeyboard().removeListener(wakeUp);
+                completion.complete(this);
+                return;
+            }
+            int seen = chip8.getKeyboard().getEventCount();
+            try {
+                int executed = chip8.runFrame();
+                cycles += executed;
+                frames++;
+                totalCycles.add(executed);
+                totalFrames.increment();
+            } catch (Throwable e) {
+                chip8.getKeyboard().removeListener(wakeUp);
+                completion.completeExceptionally(e);
+                return;
+            }
+            // only sessions without an end wait for a key, a frame count is reached by running the waiting frames
+            if (targetFrames == Long.MAX_VALUE && chip8.isWaitingForInput() && !cancelled) {
+                parked.set(true);
+                // a key event before parked was set found nothing to wake
+                if (chip8.getKeyboard().getEventCount() == seen || !parked.compareAndSet(true, false)) {
+                    return;
+                }
+            }
+            pool.execute(this);
+        }
+
+        private void wake() {
+            if (parked.compareAndSet(true, false)) {
+                pool.execute(this);
+            }
+        }
+
+        public void cancel() {
+            cancelled = true;
+            this.wake();
+        }
+
+        public CompletableFuture<Session> completion() {
+            return completion;
+        }
+
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        public Chip8 getChip8() {
+            return chip8;
+        }
+
+        public long getCycles() {
+            return cycles;
+        }
+
+        public long getFrames() {
+            return frames;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.zkq.emulator.chip8.host;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.CompatibilityProfile;
+import com.github.zkq.emulator.chip8.core.ExecutionMode;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Rom;
+import com.github.zkq.emulator.chip8.core.Screen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Date:2026/10/18 11:02
+ * <p>
+ * Runs a rom as fast as possible on the caller's thread, without any executor or AWT/Swing class.
+ *
+ * @author agent
+ */
+public class HeadlessRunner {
+
+    private static final int BATCH = 1 << 16;
+
+    private final Screen screen;
+    private final Keyboard keyboard = new Keyboard();
+    private final Chip8 chip8;
+
+    public HeadlessRunner(byte[] rom, ExecutionMode executionMode) {
+        this(rom, executionMode, CompatibilityProfile.DEFAULT);
+    }
+
+    public HeadlessRunner(byte[] rom, ExecutionMode executionMode, CompatibilityProfile profile) {
+        this.screen = profile.getMachine().createScreen();
+        this.chip8 = new Chip8(Rom.of(rom), screen, keyboard, executionMode, profile);
+    }
+
+    /**
+     * @return the number of instructions executed
+     */
+    public long run(long cycles) {
+        long executed = 0;
+        while (executed < cycles) {
+            executed += chip8.step((int) Math.min(BATCH, cycles - executed));
+        }
+        return executed;
+    }
+
+    /**
+     * @return the number of instructions executed
+     */
+    public long runFrames(int frames) {
+        long executed = 0;
+        for (int f = 0; f < frames; f++) {
+            executed += chip8.runFrame();
+        }
+        return executed;
+    }
+
+    public Chip8 getChip8() {
+        return chip8;
+    }
+
+    public Screen getScreen() {
+        return screen;
+    }
+
+    public Keyboard getKeyboard() {
+        return keyboard;
+    }
+
+    /**
+     * usage: HeadlessRunner rom [cycles] [INTERPRETER|CACHED|RECOMPILER] [profile]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: HeadlessRunner rom [cycles] [INTERPRETER|CACHED|RECOMPILER] [profile]");
+            System.exit(1);
+        }
+        byte[] rom = Files.readAllBytes(Paths.get(args[0]));
+        long cycles = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000L;
+        ExecutionMode mode = args.length > 2 ? ExecutionMode.valueOf(args[2]) : ExecutionMode.INTERPRETER;
+        CompatibilityProfile profile = args.length > 3 ? CompatibilityProfile.valueOf(args[3])
+                                                       : CompatibilityProfile.DEFAULT;
+
+        HeadlessRunner runner = new HeadlessRunner(rom, mode, profile);
+        long begin = System.nanoTime();
+        long executed = runner.run(cycles);
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%d instructions in %.3f ms, %.0f instructions/s (%s)%n", executed, elapsed / 1e6,
+                          executed * 1e9 / elapsed, mode);
+        long idle = runner.getChip8().getIdleCycles();
+        if (idle > 0) {
+            System.out.printf("%d instructions (%.1f%%) skipped in idle loops%n", idle, idle * 100.0 / executed);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.zkq.emulator.chip8.host;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.ExecutionMode;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Rom;
+import com.github.zkq.emulator.chip8.core.Screen;
+import com.github.zkq.emulator.chip8.core.VirtualClock;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Date:2026/10/18 18:10
+ * <p>
+ * Runs any number of {@link Chip8} instances in real time, each on its own virtual thread.
+ * <p>
+ * A session thread is a plain {@link VirtualClock} loop: it sleeps until the next frame is due, and blocks until the
+ * next key event while the program waits in Fx0A or spins in an idle loop. A blocked virtual thread gives its carrier
+ * back, so an idle session costs its heap footprint only, and instances of one {@link Rom} share all pages they do not
+ * write. Memory, not thread count, bounds the number of sessions.
+ *
+ * @author agent
+ */
+public class SessionHost implements AutoCloseable {
+
+    private final ThreadFactory threads = Thread.ofVirtual().name("chip8-session-", 0).factory();
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * Start a new instance of rom with its own screen and keyboard. Uses the interpreter, which keeps no per-instance
+     * code cache.
+     */
+    public Session open(Rom rom) {
+        return this.open(new Chip8(rom, new Screen(), new Keyboard(), ExecutionMode.INTERPRETER));
+    }
+
+    /**
+     * Start running chip8 in real time. The instance must not be driven by anything else meanwhile.
+     */
+    public Session open(Chip8 chip8) {
+        Objects.requireNonNull(chip8, "Empty Chip8!");
+        if (closed) {
+            throw new IllegalStateException("session host closed");
+        }
+        Session session = new Session(chip8);
+        sessions.add(session);
+        session.thread.start();
+        return session;
+    }
+
+    /**
+     * @return the number of running sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Stop every session and wait for their threads to end. An interrupt stops the wait and stays set on the calling
+     * thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Session session : sessions) {
+            session.close();
+        }
+        try {
+            for (Session session : sessions) {
+                session.thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public final class Session implements Runnable {
+        private final Chip8 chip8;
+        private final VirtualClock clock;
+        private final Thread thread;
+        private final CompletableFuture<Session> completion = new CompletableFuture<>();
+
+        private Session(Chip8 chip8) {
+            this.chip8 = chip8;
+            this.clock = new VirtualClock(chip8);
+            this.thread = threads.newThread(this);
+        }
+
+        @Override
+        public void run() {
+            try {
+                clock.run();
+                completion.complete(this);
+            } catch (Throwable e) {
+                completion.completeExceptionally(e);
+            } finally {
+                sessions.remove(this);
+            }
+        }
+
+        /**
+         * stop after the current frame, {@link #completion()} completes once the thread is done
+         */
+        public void close() {
+            clock.stop();
+        }
+
+        public CompletableFuture<Session> completion() {
+            return completion;
+        }
+
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        public Chip8 getChip8() {
+            return chip8;
+        }
+
+        public VirtualClock getClock() {
+            return clock;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.zkq.emulator.chip8.record;
+
+import com.github.zkq.emulator.chip8.core.Screen;
+import com.github.zkq.emulator.chip8.stream.FrameCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Date:2026/10/18 20:05
+ * <p>
+ * Plays back a file written by {@link SessionRecorder}. The file is read through read-only mapped windows of
+ * {@link #WINDOW_SIZE} bytes at long offsets, so recordings are not limited to 2 GB. Seeking to a frame decodes from
+ * the closest keyframe before it, at most one keyframe interval of records whatever the length of the recording.
+ * Not thread-safe.
+ *
+ * @author agent
+ */
+public class SessionPlayer implements AutoCloseable {
+
+    /**
+     * bytes mapped at a time, a window always holds a whole record unless the file ends first
+     */
+    private static final int WINDOW_SIZE = 1 << 24;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int keyframeInterval;
+    private final int frameCount;
+    private final long[] index;
+
+    private MappedByteBuffer window;
+    private long windowOffset;
+    /**
+     * file offset of the next record
+     */
+    private long position;
+
+    private final long[] rows = new long[Screen.HIGH];
+    private int keys;
+    private int events;
+    private final long[] eventCycles = new long[SessionRecorder.MAX_EVENTS];
+    private final int[] eventKeys = new int[SessionRecorder.MAX_EVENTS];
+    /**
+     * frame in rows, -1 before the first read
+     */
+    private int frame = -1;
+
+    private SessionPlayer(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        if (fileSize < SessionRecorder.HEADER_SIZE) {
+            throw new IOException("not a session recording");
+        }
+        this.map(0);
+        if (window.getInt(0) != SessionRecorder.MAGIC || window.getInt(4) != SessionRecorder.VERSION) {
+            throw new IOException("not a session recording");
+        }
+        this.keyframeInterval = window.getInt(8);
+        long indexOffset = window.getLong(SessionRecorder.INDEX_OFFSET);
+        if (indexOffset != 0) {
+            this.frameCount = window.getInt(SessionRecorder.COUNT_OFFSET);
+            this.index = new long[(frameCount + keyframeInterval - 1) / keyframeInterval];
+            if (indexOffset + (long) index.length * Long.BYTES > fileSize) {
+                throw new IOException("truncated session recording");
+            }
+            for (int k = 0; k < index.length; k++) {
+                index[k] = this.window(indexOffset + (long) k * Long.BYTES, Long.BYTES).getLong();
+            }
+        } else {
+            // the recorder did not finish, index what made it to disk
+            long[] found = new long[64];
+            int count = 0;
+            long at = SessionRecorder.HEADER_SIZE;
+            while (at + 2 <= fileSize) {
+                int length = this.window(at, 2).getShort() & 0xFFFF;
+                if (length == 0 || at + 2 + length > fileSize) {
+                    break;
+                }
+                if (count % keyframeInterval == 0) {
+                    int k = count / keyframeInterval;
+                    if (k == found.length) {
+                        found = Arrays.copyOf(found, k * 2);
+                    }
+                    found[k] = at;
+                }
+                count++;
+                at += 2 + length;
+            }
+            this.frameCount = count;
+            this.index = Arrays.copyOf(found, (count + keyframeInterval - 1) / keyframeInterval);
+        }
+    }
+
+    public static SessionPlayer open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new SessionPlayer(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Decode frame n into {@link #getRows()}, {@link #getKeys()} and its key events.
+     *
+     * @throws UncheckedIOException if the file cannot be mapped
+     */
+    public void seek(int n) {
+        if (n < 0 || n >= frameCount) {
+            throw new IllegalArgumentException("no frame " + n);
+        }
+        int from;
+        if (frame >= 0 && frame <= n && n / keyframeInterval == frame / keyframeInterval) {
+            // same keyframe interval, continue from where we are
+            from = frame + 1;
+        } else {
+            from = n - n % keyframeInterval;
+            position = index[n / keyframeInterval];
+        }
+        try {
+            for (int f = from; f <= n; f++) {
+                this.readRecord();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        frame = n;
+    }
+
+    /**
+     * @return false at the end of the recording
+     */
+    public boolean next() {
+        if (frame + 1 >= frameCount) {
+            return false;
+        }
+        this.seek(frame + 1);
+        return true;
+    }
+
+    /**
+     * @return the frame last decoded, -1 before the first one
+     */
+    public int getFrame() {
+        return frame;
+    }
+
+    /**
+     * @return the packed screen rows of the current frame, updated in place
+     */
+    public long[] getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the pressed key mask at the end of the current frame
+     */
+    public int getKeys() {
+        return keys;
+    }
+
+    /**
+     * @return the number of key events recorded with the current frame
+     */
+    public int getEventCount() {
+        return events;
+    }
+
+    /**
+     * @return the cycle key event e of the current frame took effect at
+     */
+    public long getEventCycle(int e) {
+        Objects.checkIndex(e, events);
+        return eventCycles[e];
+    }
+
+    /**
+     * @return the pressed key mask after key event e of the current frame
+     */
+    public int getEventKeys(int e) {
+        Objects.checkIndex(e, events);
+        return eventKeys[e];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readRecord() throws IOException {
+        MappedByteBuffer record = this.window(position, SessionRecorder.MAX_RECORD_SIZE);
+        int length = record.getShort() & 0xFFFF;
+        int flags = record.get();
+        if ((flags & SessionRecorder.FLAG_KEYS) != 0) {
+            keys = record.getShort() & 0xFFFF;
+        }
+        events = 0;
+        if ((flags & SessionRecorder.FLAG_EVENTS) != 0) {
+            events = record.get();
+            for (int e = 0; e < events; e++) {
+                eventCycles[e] = record.getLong();
+                keys = eventKeys[e] = record.getShort() & 0xFFFF;
+            }
+        }
+        FrameCodec.decode(record, rows);
+        position += 2 + length;
+    }
+
+    /**
+     * @return the window holding the length bytes at offset, or up to the end of the file, positioned at offset
+     */
+    private MappedByteBuffer window(long offset, int length) throws IOException {
+        long end = Math.min(offset + length, fileSize);
+        if (offset < windowOffset || end > windowOffset + window.limit()) {
+            this.map(offset);
+        }
+        window.position((int) (offset - windowOffset));
+        return window;
+    }
+
+    private void map(long offset) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, fileSize - offset));
+        windowOffset = offset;
+    }
+}
@@ -0,0 +1,317 @@
+package com.github.zkq.emulator.chip8.record;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.CompatibilityProfile;
+import com.github.zkq.emulator.chip8.core.InputJournal;
+import com.github.zkq.emulator.chip8.core.Screen;
+import com.github.zkq.emulator.chip8.stream.FrameCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Date:2026/10/18 19:40
+ * <p>
+ * Records the screen of a {@link Chip8} once per frame, and every key event with the cycle it took effect at, into a
+ * file that {@link SessionPlayer} can seek.
+ * <p>
+ * Key events come from the {@link InputJournal} of the instance, a recording journal is attached if it has none, so
+ * a press and release within one frame are both kept. {@link #record()} only copies the rows and the new events into
+ * a preallocated ring, a background writer encodes them and appends them through a {@link FileChannel} in large
+ * batches. File layout:
+ * <pre>
+ * header   magic "C8RC", version, keyframe interval, frame count, index offset (long)
+ * records  per frame: unsigned short length, flags, key mask at the start of a keyframe,
+ *          event count and (cycle, key mask after the event) per event if any, one {@link FrameCodec} frame
+ * index    offset of every keyframe record, written on close
+ * </pre>
+ * Every keyframeInterval-th frame is a keyframe, all others are deltas against the previous frame, so any frame is at
+ * most keyframeInterval records away from an indexed offset. A file whose recorder did not close has no index, the
+ * player rebuilds it by scanning.
+ *
+ * @author agent
+ */
+public class SessionRecorder implements AutoCloseable {
+
+    static final int MAGIC = 0x43385243;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int COUNT_OFFSET = 12;
+    static final int INDEX_OFFSET = 16;
+    static final int FLAG_KEYS = 0x1;
+    static final int FLAG_EVENTS = 0x2;
+    /**
+     * key events in one record, more events in a frame are carried to the next records with their cycles
+     */
+    static final int MAX_EVENTS = 64;
+    static final int EVENT_SIZE = Long.BYTES + Short.BYTES;
+    static final int MAX_RECORD_SIZE = 2 + 1 + 2 + 1 + MAX_EVENTS * EVENT_SIZE + FrameCodec.MAX_FRAME_SIZE;
+
+    private static final int DEFAULT_KEYFRAME_INTERVAL = 60;
+    /**
+     * frames the emulation thread can be ahead of the writer
+     */
+    private static final int RING_SIZE = 1024;
+    /**
+     * the writer is woken once this many frames are pending, waking it costs more than recording a frame
+     */
+    private static final int WAKE_FRAMES = 64;
+    private static final int BATCH_SIZE = 1 << 20;
+    /**
+     * an idle writer flushes a partial batch once it holds this many frames
+     */
+    private static final int FLUSH_FRAMES = 600;
+
+    private final Chip8 chip8;
+    private final Screen screen;
+    private final InputJournal journal;
+    /**
+     * whether open attached the journal, and close detaches it
+     */
+    private final boolean ownsJournal;
+    private final FileChannel channel;
+    private final int keyframeInterval;
+
+    private final long[][] ring = new long[RING_SIZE][Screen.HIGH];
+    private final int[] ringKeys = new int[RING_SIZE];
+    private final int[] ringEvents = new int[RING_SIZE];
+    private final long[][] ringCycles = new long[RING_SIZE][MAX_EVENTS];
+    private final int[][] ringMasks = new int[RING_SIZE][MAX_EVENTS];
+    private final AtomicLong produced = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closing;
+    private volatile IOException failure;
+
+    // emulation thread only
+    /**
+     * next journal event to record
+     */
+    private int cursor;
+    /**
+     * key mask after the last recorded event
+     */
+    private int keys;
+
+    // writer thread only
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_SIZE);
+    private final long[] previous = new long[Screen.HIGH];
+    private long position = HEADER_SIZE;
+    private long[] index = new long[64];
+    private int keyframes;
+    private long flushedFrames;
+
+    private SessionRecorder(Chip8 chip8, FileChannel channel, int keyframeInterval) {
+        this.chip8 = chip8;
+        this.screen = chip8.getScreen();
+        this.ownsJournal = chip8.getInputJournal() == null;
+        if (ownsJournal) {
+            chip8.setInputJournal(InputJournal.record());
+        }
+        this.journal = chip8.getInputJournal();
+        this.cursor = journal.getApplied();
+        this.keys = chip8.getKeyboard().getPressedMask();
+        this.channel = channel;
+        this.keyframeInterval = keyframeInterval;
+        this.writer = new Thread(this::writeLoop, "chip8-recorder");
+        writer.setDaemon(true);
+    }
+
+    public static SessionRecorder open(Path file, Chip8 chip8) throws IOException {
+        return open(file, chip8, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Create or truncate file and start the writer. Call from the emulation thread, the input journal of chip8 must
+     * stay attached until {@link #close()}.
+     *
+     * @throws IllegalArgumentException if chip8 is not a 64x32 {@link CompatibilityProfile.Machine#CHIP_8}, whose
+     *                                  screen the file format cannot hold
+     */
+    public static SessionRecorder open(Path file, Chip8 chip8, int keyframeInterval) throws IOException {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("keyframeInterval must be positive");
+        }
+        if (chip8.getProfile().getMachine() != CompatibilityProfile.Machine.CHIP_8) {
+            throw new IllegalArgumentException("frames of " + chip8.getProfile().getMachine() + " cannot be recorded");
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+        SessionRecorder recorder = new SessionRecorder(chip8, channel, keyframeInterval);
+        try {
+            recorder.writeHeader(0, 0);
+        } catch (IOException e) {
+            recorder.detach();
+            channel.close();
+            throw e;
+        }
+        recorder.writer.start();
+        return recorder;
+    }
+
+    /**
+     * Record the current screen and the key events applied since the last call as the next frame. Call from the
+     * emulation thread after every frame.
+     */
+    public void record() {
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException("recording failed", e);
+        }
+        if (chip8.getInputJournal() != journal) {
+            throw new IllegalStateException("the input journal was replaced while recording");
+        }
+        long n = produced.get();
+        while (n - consumed.get() >= RING_SIZE) {
+            // the writer is a whole ring behind, wait for the disk
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, 100_000);
+        }
+        int slot = (int) (n % RING_SIZE);
+        screen.copyRows(ring[slot]);
+        ringKeys[slot] = keys;
+        int events = Math.min(journal.getApplied() - cursor, MAX_EVENTS);
+        long[] cycles = ringCycles[slot];
+        int[] masks = ringMasks[slot];
+        for (int k = 0; k < events; k++, cursor++) {
+            cycles[k] = journal.getCycle(cursor);
+            masks[k] = journal.getPressedMask(cursor);
+        }
+        if (events > 0) {
+            keys = masks[events - 1];
+        }
+        ringEvents[slot] = events;
+        produced.set(n + 1);
+        if ((n + 1) % WAKE_FRAMES == 0) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * @return frames recorded so far
+     */
+    public long getFrames() {
+        return produced.get();
+    }
+
+    /**
+     * Write what is pending, the index and the header, then close the file. Detaches the input journal open
+     * attached.
+     */
+    @Override
+    public void close() throws IOException {
+        this.detach();
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void detach() {
+        if (ownsJournal && chip8.getInputJournal() == journal) {
+            chip8.setInputJournal(null);
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                boolean last = closing;
+                long n = consumed.get();
+                long end = produced.get();
+                for (; n < end; n++) {
+                    this.encode(n);
+                    consumed.set(n + 1);
+                }
+                if (last) {
+                    break;
+                }
+                if (n - flushedFrames >= FLUSH_FRAMES && produced.get() == n) {
+                    // slow sessions fill a batch in minutes, do not keep that much only in memory
+                    this.flush();
+                    flushedFrames = n;
+                }
+                LockSupport.park(this);
+            }
+            this.flush();
+            ByteBuffer trailer = ByteBuffer.allocate(keyframes * Long.BYTES);
+            trailer.asLongBuffer().put(index, 0, keyframes);
+            long indexOffset = position;
+            while (trailer.hasRemaining()) {
+                position += channel.write(trailer, position);
+            }
+            this.writeHeader(consumed.get(), indexOffset);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void encode(long n) throws IOException {
+        if (batch.remaining() < MAX_RECORD_SIZE) {
+            this.flush();
+        }
+        int slot = (int) (n % RING_SIZE);
+        long[] rows = ring[slot];
+        int events = ringEvents[slot];
+        boolean keyframe = n % keyframeInterval == 0;
+        if (keyframe) {
+            if (keyframes == index.length) {
+                index = Arrays.copyOf(index, keyframes * 2);
+            }
+            index[keyframes++] = position + batch.position();
+        }
+        int start = batch.position();
+        batch.position(start + 2);
+        int flags = (keyframe ? FLAG_KEYS : 0) | (events > 0 ? FLAG_EVENTS : 0);
+        batch.put((byte) flags);
+        if (keyframe) {
+            batch.putShort((short) ringKeys[slot]);
+        }
+        if (events > 0) {
+            long[] cycles = ringCycles[slot];
+            int[] masks = ringMasks[slot];
+            batch.put((byte) events);
+            for (int k = 0; k < events; k++) {
+                batch.putLong(cycles[k]).putShort((short) masks[k]);
+            }
+        }
+        if (keyframe) {
+            FrameCodec.encodeKeyframe(rows, batch);
+        } else {
+            FrameCodec.encodeDelta(previous, rows, batch);
+        }
+        batch.putShort(start, (short) (batch.position() - start - 2));
+        System.arraycopy(rows, 0, previous, 0, Screen.HIGH);
+    }
+
+    private void flush() throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) {
+            position += channel.write(batch, position);
+        }
+        batch.clear();
+    }
+
+    private void writeHeader(long frames, long indexOffset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(keyframeInterval).putInt((int) frames).putLong(indexOffset);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.zkq.emulator.chip8.state;
+
+/**
+ * Date:2026/10/18 14:40
+ * <p>
+ * XOR delta between two equally sized states, with runs of unchanged bytes collapsed.
+ * <p>
+ * Encoded form: a sequence of (skip, count, count literal bytes) tokens, skip and count as unsigned varints.
+ * skip bytes are unchanged, the literals are XORed onto the next count bytes. Runs of fewer than
+ * {@link #MIN_SKIP} unchanged bytes are kept as literals, so the worst case stays close to the state size.
+ *
+ * @author agent
+ */
+final class DeltaCodec {
+
+    private static final int MIN_SKIP = 4;
+
+    private DeltaCodec() {
+    }
+
+    /**
+     * @return an upper bound of the encoded size of a state of size bytes
+     */
+    static int maxEncodedSize(int size) {
+        return size + size / MIN_SKIP * 2 + 16;
+    }
+
+    /**
+     * Encode cur XOR base into dst at offset, base null means all zero.
+     *
+     * @return the number of bytes written
+     */
+    static int encode(byte[] cur, byte[] base, byte[] dst, int offset) {
+        int size = cur.length;
+        int out = offset;
+        int j = 0;
+        while (j < size) {
+            int skipStart = j;
+            while (j < size && diff(cur, base, j) == 0) {
+                j++;
+            }
+            if (j == size) {
+                break;
+            }
+            int literalStart = j;
+            int zeros = 0;
+            while (j < size && zeros < MIN_SKIP) {
+                zeros = diff(cur, base, j) == 0 ? zeros + 1 : 0;
+                j++;
+            }
+            int literalEnd = j - zeros;
+            j = literalEnd;
+            out = putVarint(dst, out, literalStart - skipStart);
+            out = putVarint(dst, out, literalEnd - literalStart);
+            for (int k = literalStart; k < literalEnd; k++) {
+                dst[out++] = (byte) diff(cur, base, k);
+            }
+        }
+        return out - offset;
+    }
+
+    /**
+     * XOR an encoded delta of length bytes at src[offset] onto state
+     */
+    static void apply(byte[] src, int offset, int length, byte[] state) {
+        int in = offset;
+        int end = offset + length;
+        int j = 0;
+        while (in < end) {
+            int skip = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = src[in++];
+                skip |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int count = 0;
+            shift = 0;
+            do {
+                b = src[in++];
+                count |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            j += skip;
+            for (int k = 0; k < count; k++) {
+                state[j++] ^= src[in++];
+            }
+        }
+    }
+
+    private static int diff(byte[] cur, byte[] base, int j) {
+        return base == null ? cur[j] & 0xFF : (cur[j] ^ base[j]) & 0xFF;
+    }
+
+    private static int putVarint(byte[] dst, int out, int value) {
+        while ((value & ~0x7F) != 0) {
+            dst[out++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        dst[out++] = (byte) value;
+        return out;
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.zkq.emulator.chip8.state;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.VirtualClock;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Date:2026/10/18 14:55
+ * <p>
+ * Records one {@link Chip8} state per frame so a session can be rewound.
+ * <p>
+ * Every state is stored as a {@link DeltaCodec} delta against the previous frame, every keyframeInterval-th against
+ * nothing (a keyframe). Records are appended to a fixed byte arena used as a ring, the oldest frames are dropped
+ * when it fills up, down to the next keyframe. All buffers are allocated up front, recording and rewinding allocate
+ * nothing. Not thread-safe, call it from the thread driving the instance, between frames.
+ *
+ * @author agent
+ */
+public class RewindBuffer {
+
+    private static final int DEFAULT_KEYFRAME_INTERVAL = VirtualClock.FRAME_RATE;
+    /**
+     * arena bytes budgeted per delta frame by {@link #RewindBuffer(Chip8, int)}
+     */
+    private static final int TYPICAL_DELTA_SIZE = 256;
+
+    private final Chip8 chip8;
+    private final int keyframeInterval;
+    private final int maxRecordSize;
+    private final byte[] arena;
+    private int head;
+
+    // one slot per recorded frame, oldest first
+    private final int[] offsets;
+    private final int[] lengths;
+    private final boolean[] keyframes;
+    private int oldest;
+    private int count;
+    private int sinceKeyframe;
+
+    /**
+     * state of the newest recorded frame
+     */
+    private byte[] previous;
+    private ByteBuffer previousBuffer;
+    private byte[] current;
+    private ByteBuffer currentBuffer;
+
+    /**
+     * keep up to the given number of frames, with one keyframe per second
+     */
+    public RewindBuffer(Chip8 chip8, int frames) {
+        this(chip8, frames, DEFAULT_KEYFRAME_INTERVAL,
+             (frames / DEFAULT_KEYFRAME_INTERVAL + 2) * DeltaCodec.maxEncodedSize(chip8.snapshotSize())
+                     + frames * TYPICAL_DELTA_SIZE);
+    }
+
+    public RewindBuffer(Chip8 chip8, int frames, int keyframeInterval, int arenaBytes) {
+        int stateSize = chip8.snapshotSize();
+        this.maxRecordSize = DeltaCodec.maxEncodedSize(stateSize);
+        if (frames < 1 || keyframeInterval < 1 || arenaBytes < maxRecordSize * 2) {
+            throw new IllegalArgumentException("rewind buffer too small");
+        }
+        this.chip8 = chip8;
+        this.keyframeInterval = keyframeInterval;
+        this.arena = new byte[arenaBytes];
+        this.offsets = new int[frames];
+        this.lengths = new int[frames];
+        this.keyframes = new boolean[frames];
+        this.previous = new byte[stateSize];
+        this.previousBuffer = ByteBuffer.wrap(previous);
+        this.current = new byte[stateSize];
+        this.currentBuffer = ByteBuffer.wrap(current);
+    }
+
+    /**
+     * record the current state as the newest frame
+     */
+    public void record() {
+        currentBuffer.clear();
+        chip8.snapshot(currentBuffer);
+
+        boolean keyframe = count == 0 || sinceKeyframe + 1 >= keyframeInterval;
+        if (head + maxRecordSize > arena.length) {
+            head = 0;
+        }
+        while (count > 0 && (count == offsets.length || overlaps(oldest, head, head + maxRecordSize))) {
+            this.dropOldest();
+        }
+        if (count == 0) {
+            keyframe = true;
+        }
+        int length = DeltaCodec.encode(current, keyframe ? null : previous, arena, head);
+
+        int slot = slot(count);
+        offsets[slot] = head;
+        lengths[slot] = length;
+        keyframes[slot] = keyframe;
+        count++;
+        head += length;
+        sinceKeyframe = keyframe ? 0 : sinceKeyframe + 1;
+
+        byte[] b = previous;
+        previous = current;
+        current = b;
+        ByteBuffer bb = previousBuffer;
+        previousBuffer = currentBuffer;
+        currentBuffer = bb;
+    }
+
+    /**
+     * Restore the state recorded the given number of frames before the newest one, and forget the frames after it.
+     * Rewinding further than what is recorded stops at the oldest frame.
+     *
+     * @return the number of frames actually rewound
+     */
+    public int rewind(int frames) {
+        if (count == 0 || frames < 0) {
+            return 0;
+        }
+        int target = Math.max(0, count - 1 - frames);
+        int key = target;
+        while (!keyframes[slot(key)]) {
+            key--;
+        }
+        Arrays.fill(previous, (byte) 0);
+        for (int n = key; n <= target; n++) {
+            int slot = slot(n);
+            DeltaCodec.apply(arena, offsets[slot], lengths[slot], previous);
+        }
+        previousBuffer.clear();
+        chip8.restore(previousBuffer);
+
+        int rewound = count - 1 - target;
+        int slot = slot(target);
+        head = offsets[slot] + lengths[slot];
+        count = target + 1;
+        sinceKeyframe = target - key;
+        return rewound;
+    }
+
+    /**
+     * @return the number of frames that can currently be rewound
+     */
+    public int available() {
+        return Math.max(0, count - 1);
+    }
+
+    public void clear() {
+        count = 0;
+        oldest = 0;
+        head = 0;
+    }
+
+    private int slot(int n) {
+        return (oldest + n) % offsets.length;
+    }
+
+    private boolean overlaps(int slot, int from, int to) {
+        int start = offsets[slot];
+        return start < to && start + lengths[slot] > from;
+    }
+
+    /**
+     * drop the oldest frame, and the deltas that depended on it up to the next keyframe
+     */
+    private void dropOldest() {
+        do {
+            oldest = (oldest + 1) % offsets.length;
+            count--;
+        } while (count > 0 && !keyframes[oldest]);
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.zkq.emulator.chip8.state;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Date:2026/10/18 14:02
+ * <p>
+ * Appends {@link Chip8} snapshots into a memory-mapped file. All snapshots in a store have the same size, so
+ * snapshot n lives at a fixed offset and can be restored without reading the ones before it.
+ * <p>
+ * File layout: magic "C8SF", version, slot size, count, then count slots. Offsets are longs and the slots are mapped
+ * in segments of {@link #SEGMENT_SLOTS}, mapped when first used, so a store is not limited to the 2 GB of one
+ * {@link MappedByteBuffer}. Not thread-safe.
+ *
+ * @author agent
+ */
+public class SnapshotStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x43385346;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 12;
+    /**
+     * slots per mapped segment, the file grows by one segment at a time
+     */
+    private static final int SEGMENT_SLOTS = 256;
+
+    private final FileChannel channel;
+    private final int slotSize;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[16];
+    private int count;
+
+    private SnapshotStore(FileChannel channel, int slotSize, MappedByteBuffer header, int count) {
+        this.channel = channel;
+        this.slotSize = slotSize;
+        this.header = header;
+        this.count = count;
+    }
+
+    /**
+     * Create a new store, or open an existing one, for snapshots of slotSize bytes ({@link Chip8#snapshotSize()}).
+     */
+    public static SnapshotStore open(Path file, int slotSize) throws IOException {
+        if (slotSize < 1 || slotSize > Integer.MAX_VALUE / SEGMENT_SLOTS) {
+            throw new IllegalArgumentException("bad slot size " + slotSize);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            int count = 0;
+            boolean exists = channel.size() >= HEADER_SIZE;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (exists) {
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != slotSize) {
+                    throw new IOException("not a compatible snapshot store: " + file);
+                }
+                count = header.getInt(COUNT_OFFSET);
+                if (count < 0 || HEADER_SIZE + (long) count * slotSize > channel.size()) {
+                    throw new IOException("truncated snapshot store: " + file);
+                }
+            }
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, slotSize).putInt(COUNT_OFFSET, count);
+            return new SnapshotStore(channel, slotSize, header, count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the index of the new snapshot
+     * @throws IllegalArgumentException if the snapshots of chip8 do not fit the slots of this store
+     * @throws IllegalStateException    if the store holds {@link Integer#MAX_VALUE} snapshots
+     */
+    public int append(Chip8 chip8) throws IOException {
+        if (chip8.snapshotSize() != slotSize) {
+            throw new IllegalArgumentException("snapshots of " + chip8.snapshotSize() + " bytes in slots of "
+                                                       + slotSize);
+        }
+        if (count == Integer.MAX_VALUE) {
+            throw new IllegalStateException("snapshot store is full");
+        }
+        chip8.snapshot(this.slot(count));
+        header.putInt(COUNT_OFFSET, ++count);
+        return count - 1;
+    }
+
+    public void restore(int index, Chip8 chip8) throws IOException {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("snapshot " + index + " of " + count);
+        }
+        chip8.restore(this.slot(index));
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getSlotSize() {
+        return slotSize;
+    }
+
+    /**
+     * flush written snapshots to the storage device
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.force();
+        channel.close();
+    }
+
+    /**
+     * @return the segment holding slot index, positioned and limited to it
+     */
+    private MappedByteBuffer slot(int index) throws IOException {
+        int s = index / SEGMENT_SLOTS;
+        if (s >= segments.length) {
+            segments = Arrays.copyOf(segments, Math.max(s + 1, segments.length * 2));
+        }
+        MappedByteBuffer segment = segments[s];
+        if (segment == null) {
+            long offset = HEADER_SIZE + (long) s * SEGMENT_SLOTS * slotSize;
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, offset, (long) SEGMENT_SLOTS * slotSize);
+            segments[s] = segment;
+        }
+        int at = index % SEGMENT_SLOTS * slotSize;
+        segment.limit(at + slotSize).position(at);
+        return segment;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.zkq.emulator.chip8.stream;
+
+import com.github.zkq.emulator.chip8.core.Screen;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Date:2026/10/18 18:40
+ * <p>
+ * Wire format of one frame of packed screen rows ({@link Screen#copyRows(long[])}).
+ * <p>
+ * A keyframe is the type byte and the {@link Screen#HIGH} rows as big-endian longs. A delta is the type byte, an int
+ * with bit y set for every row that differs from the base, then for each such row a byte with bit 7 - b set for every
+ * byte b of the row that differs, followed by those bytes XORed with the base. A sprite touches one or two bytes of a
+ * few rows, so typical deltas are a dozen bytes.
+ *
+ * @author agent
+ */
+public final class FrameCodec {
+
+    public static final byte KEYFRAME = 1;
+    public static final byte DELTA = 2;
+    /**
+     * upper bound of an encoded frame
+     */
+    public static final int MAX_FRAME_SIZE = 1 + 4 + Screen.HIGH * (1 + Long.BYTES);
+
+    private FrameCodec() {
+    }
+
+    public static void encodeKeyframe(long[] rows, ByteBuffer dst) {
+        dst.put(KEYFRAME);
+        for (int y = 0; y < Screen.HIGH; y++) {
+            dst.putLong(rows[y]);
+        }
+    }
+
+    /**
+     * encode rows as a delta against base, which the decoder must hold
+     */
+    public static void encodeDelta(long[] base, long[] rows, ByteBuffer dst) {
+        dst.put(DELTA);
+        int maskAt = dst.position();
+        dst.putInt(0);
+        int rowMask = 0;
+        for (int y = 0; y < Screen.HIGH; y++) {
+            long diff = rows[y] ^ base[y];
+            if (diff == 0) {
+                continue;
+            }
+            rowMask |= 1 << y;
+            int byteMaskAt = dst.position();
+            dst.put((byte) 0);
+            int byteMask = 0;
+            for (int b = 0; b < Long.BYTES; b++) {
+                int d = (int) (diff >>> (56 - 8 * b)) & 0xFF;
+                if (d != 0) {
+                    byteMask |= 0x80 >>> b;
+                    dst.put((byte) d);
+                }
+            }
+            dst.put(byteMaskAt, (byte) byteMask);
+        }
+        dst.putInt(maskAt, rowMask);
+    }
+
+    /**
+     * Decode one frame from src onto rows, which must hold the base of a delta.
+     */
+    public static void decode(ByteBuffer src, long[] rows) {
+        byte type = src.get();
+        if (type == KEYFRAME) {
+            for (int y = 0; y < Screen.HIGH; y++) {
+                rows[y] = src.getLong();
+            }
+        } else if (type == DELTA) {
+            int rowMask = src.getInt();
+            while (rowMask != 0) {
+                int y = Integer.numberOfTrailingZeros(rowMask);
+                rowMask &= rowMask - 1;
+                int byteMask = src.get() & 0xFF;
+                long diff = 0;
+                for (int b = 0; b < Long.BYTES; b++) {
+                    if ((byteMask & 0x80 >>> b) != 0) {
+                        diff |= (src.get() & 0xFFL) << (56 - 8 * b);
+                    }
+                }
+                rows[y] ^= diff;
+            }
+        } else {
+            throw new IllegalArgumentException("unknown frame type " + type);
+        }
+    }
+}
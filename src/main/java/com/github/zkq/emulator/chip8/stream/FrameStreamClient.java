@@ -0,0 +1,72 @@
+package com.github.zkq.emulator.chip8.stream;
+
+import com.github.zkq.emulator.chip8.core.Screen;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Date:2026/10/18 19:20
+ * <p>
+ * Blocking client of a {@link FrameStreamServer}, for viewers and loopback tests.
+ *
+ * @author agent
+ */
+public class FrameStreamClient implements AutoCloseable {
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(FrameCodec.MAX_FRAME_SIZE);
+    private final ByteBuffer key = ByteBuffer.allocate(1);
+    private final long[] rows = new long[Screen.HIGH];
+
+    public FrameStreamClient(InetSocketAddress address) throws IOException {
+        this.channel = SocketChannel.open(address);
+    }
+
+    /**
+     * Wait for the next frame.
+     *
+     * @return the packed rows, updated in place by every call
+     */
+    public long[] readFrame() throws IOException {
+        in.clear().limit(FrameStreamServer.LENGTH_SIZE);
+        this.fill();
+        int length = in.getShort(0) & 0xFFFF;
+        in.clear().limit(length);
+        this.fill();
+        in.flip();
+        FrameCodec.decode(in, rows);
+        return rows;
+    }
+
+    public long[] getRows() {
+        return rows;
+    }
+
+    public void sendKey(int k, boolean pressed) throws IOException {
+        if (k < 0 || k > 0xF) {
+            throw new IllegalArgumentException("no key " + k);
+        }
+        key.clear();
+        key.put((byte) (pressed ? k | FrameStreamServer.KEY_PRESSED : k)).flip();
+        while (key.hasRemaining()) {
+            channel.write(key);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void fill() throws IOException {
+        while (in.hasRemaining()) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("server closed the stream");
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.github.zkq.emulator.chip8.stream;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.CompatibilityProfile;
+import com.github.zkq.emulator.chip8.core.FrameExchange;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Screen;
+import com.github.zkq.emulator.chip8.core.ScreenListener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Date:2026/10/18 18:55
+ * <p>
+ * Streams the screen of one {@link Chip8} to any number of TCP clients, from one selector thread.
+ * <p>
+ * Server to client: messages of an unsigned short length and one {@link FrameCodec} frame, a keyframe first and
+ * deltas after that. Client to server: one byte per key event, the key in the low nibble, {@link #KEY_PRESSED} set
+ * for a press. Keys a client still holds are released when it disconnects.
+ * <p>
+ * Frames come from the emulation thread through a {@link FrameExchange}. Every client keeps the last frame it was
+ * sent and gets deltas against it, so a client whose socket is still busy skips frames and catches up with one
+ * delta instead of queueing them. Each client owns a direct buffer allocated on connect, serving a frame allocates
+ * nothing.
+ *
+ * @author agent
+ */
+public class FrameStreamServer implements Runnable, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(FrameStreamServer.class.getName());
+
+    public static final int KEY_PRESSED = 0x10;
+    static final int LENGTH_SIZE = Short.BYTES;
+
+    private final Screen screen;
+    private final Keyboard keyboard;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final FrameExchange<long[]> frames = FrameExchange.rows();
+    private final ScreenListener listener = this::frameChanged;
+    private final Consumer<SelectionKey> handler = this::handle;
+    private final List<Client> clients = new ArrayList<>();
+
+    /**
+     * newest frame and its sequence number, selector thread only
+     */
+    private long[] current = new long[Screen.HIGH];
+    private long frame;
+
+    private volatile boolean running;
+
+    /**
+     * Bind to address, port 0 picks a free port. Call between frames of chip8.
+     *
+     * @throws IllegalArgumentException if chip8 is not a 64x32 {@link CompatibilityProfile.Machine#CHIP_8}, whose
+     *                                  screen the wire format cannot carry
+     */
+    public FrameStreamServer(Chip8 chip8, InetSocketAddress address) throws IOException {
+        if (chip8.getProfile().getMachine() != CompatibilityProfile.Machine.CHIP_8) {
+            throw new IllegalArgumentException("frames of " + chip8.getProfile().getMachine() + " cannot be streamed");
+        }
+        this.screen = chip8.getScreen();
+        this.keyboard = chip8.getKeyboard();
+        this.selector = Selector.open();
+        try {
+            this.server = ServerSocketChannel.open();
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            selector.close();
+            throw e;
+        }
+        screen.copyRows(current);
+        screen.addListener(listener);
+    }
+
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /**
+     * @return the number of connected clients, as seen by the selector thread
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * the selector loop, returns after {@link #close()}
+     */
+    @Override
+    public void run() {
+        running = true;
+        try {
+            while (running) {
+                selector.select(handler);
+                long[] fresh = frames.poll();
+                if (fresh != null) {
+                    current = fresh;
+                    frame++;
+                    for (int n = clients.size() - 1; n >= 0; n--) {
+                        clients.get(n).flush();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "frame stream stopped", e);
+        } finally {
+            screen.removeListener(listener);
+            for (int n = clients.size() - 1; n >= 0; n--) {
+                clients.get(n).close();
+            }
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "close failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void frameChanged(Screen screen, int dirtyRows, long dirtyColumns) {
+        frames.publish(screen);
+        selector.wakeup();
+    }
+
+    private void handle(SelectionKey key) {
+        if (key.isAcceptable()) {
+            this.accept();
+            return;
+        }
+        Client client = (Client) key.attachment();
+        if (key.isReadable()) {
+            client.read();
+        }
+        if (key.isValid() && key.isWritable()) {
+            client.write();
+            client.flush();
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = server.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Client client = new Client(channel);
+                client.key = channel.register(selector, SelectionKey.OP_READ, client);
+                clients.add(client);
+                client.flush();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "accept failed", e);
+        }
+    }
+
+    private final class Client {
+        private final SocketChannel channel;
+        private final ByteBuffer out = ByteBuffer.allocateDirect(LENGTH_SIZE + FrameCodec.MAX_FRAME_SIZE);
+        private final ByteBuffer in = ByteBuffer.allocateDirect(64);
+        private final long[] sent = new long[Screen.HIGH];
+        private SelectionKey key;
+        /**
+         * sequence number of the frame in sent, -1 before the keyframe
+         */
+        private long sentFrame = -1;
+        /**
+         * keys this client holds down
+         */
+        private int pressed;
+
+        private Client(SocketChannel channel) {
+            this.channel = channel;
+            out.limit(0);
+        }
+
+        /**
+         * send the newest frame unless the client has it or is still busy with the previous one
+         */
+        void flush() {
+            if (out.hasRemaining() || sentFrame == frame || !key.isValid()) {
+                return;
+            }
+            out.clear();
+            out.position(LENGTH_SIZE);
+            if (sentFrame < 0) {
+                FrameCodec.encodeKeyframe(current, out);
+            } else {
+                FrameCodec.encodeDelta(sent, current, out);
+            }
+            out.putShort(0, (short) (out.position() - LENGTH_SIZE));
+            out.flip();
+            System.arraycopy(current, 0, sent, 0, Screen.HIGH);
+            sentFrame = frame;
+            this.write();
+        }
+
+        void write() {
+            try {
+                channel.write(out);
+                key.interestOps(out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                                                   : SelectionKey.OP_READ);
+            } catch (IOException e) {
+                this.close();
+            }
+        }
+
+        void read() {
+            try {
+                if (channel.read(in) < 0) {
+                    this.close();
+                    return;
+                }
+            } catch (IOException e) {
+                this.close();
+                return;
+            }
+            in.flip();
+            while (in.hasRemaining()) {
+                int event = in.get();
+                int k = event & 0xF;
+                boolean down = (event & KEY_PRESSED) != 0;
+                pressed = down ? pressed | 1 << k : pressed & ~(1 << k);
+                keyboard.setKey(k, down);
+            }
+            in.clear();
+        }
+
+        void close() {
+            for (int k = 0; k < 16; k++) {
+                if ((pressed >>> k & 1) != 0) {
+                    keyboard.setKey(k, false);
+                }
+            }
+            pressed = 0;
+            clients.remove(this);
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "close failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.zkq.emulator.chip8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Date:2026/10/19 10:00
+ * <p>
+ * The roms bundled with the benchmarks, read from the source tree.
+ *
+ * @author agent
+ */
+public final class BundledRoms {
+
+    public static final String[] NAMES = {"maze", "alu", "bcd"};
+
+    private static final Path DIRECTORY = Paths.get("benchmarks", "src", "main", "resources", "roms");
+
+    private BundledRoms() {
+    }
+
+    public static byte[] load(String name) {
+        try {
+            return Files.readAllBytes(DIRECTORY.resolve(name + ".ch8"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.zkq.emulator.chip8;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date:2026/10/20 11:00
+ * <p>
+ * Whole machine states as byte arrays, to compare instances with.
+ *
+ * @author agent
+ */
+public final class Snapshots {
+
+    private Snapshots() {
+    }
+
+    /**
+     * @return the snapshot of chip8, exactly {@link Chip8#snapshotSize()} bytes
+     */
+    public static byte[] of(Chip8 chip8) {
+        ByteBuffer buffer = ByteBuffer.allocate(chip8.snapshotSize());
+        chip8.snapshot(buffer);
+        assertEquals(0, buffer.remaining());
+        return buffer.array();
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.zkq.emulator.chip8.core;
+
+import com.github.zkq.emulator.chip8.Snapshots;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 16:30
+ * <p>
+ * All 16 levels of the call stack.
+ *
+ * @author agent
+ */
+public class CallStackTest {
+
+    /**
+     * recurse until V2 reaches the depth in the SE at 208, count the returns in V3, then V1 = 1
+     */
+    private static byte[] recursion(int depth) {
+        return new byte[]{
+                0x22, 0x06, // 200: CALL 206
+                0x71, 0x01, // 202: ADD V1, 1
+                0x12, 0x04, // 204: JP 204
+                0x72, 0x01, // 206: ADD V2, 1
+                0x32, (byte) depth, // 208: SE V2, depth
+                0x22, 0x06, // 20A: CALL 206
+                0x73, 0x01, // 20C: ADD V3, 1
+                0x00, (byte) 0xEE, // 20E: RET
+        };
+    }
+
+    private static Chip8 create(int depth) {
+        return new Chip8(Rom.of(recursion(depth)), new Screen(), new Keyboard(), ExecutionMode.INTERPRETER,
+                         CompatibilityProfile.DEFAULT);
+    }
+
+    @Test
+    public void sixteenLevelsOfCalls() {
+        Chip8 chip8 = create(16);
+        chip8.step(200);
+        byte[] state = Snapshots.of(chip8);
+        assertEquals(16, (int) state[InputJournalTest.V_OFFSET + 3]);
+        assertEquals(1, (int) state[InputJournalTest.V_OFFSET + 1]);
+        assertEquals(0, chip8.getFaults());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void seventeenthCallOverflows() {
+        create(17).step(200);
+    }
+
+    @Test
+    public void deepStackSurvivesASnapshot() {
+        Chip8 chip8 = create(16);
+        // inside the 12th call
+        chip8.step(1 + 3 * 11 + 1);
+        byte[] state = Snapshots.of(chip8);
+        Chip8 copy = create(16);
+        copy.restore(ByteBuffer.wrap(state));
+        chip8.step(200);
+        copy.step(200);
+        assertTrue(Arrays.equals(Snapshots.of(chip8), Snapshots.of(copy)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.zkq.emulator.chip8.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 17:10
+ * <p>
+ * {@link Chip8#dumpTrace()} shows the instructions as they were executed.
+ *
+ * @author agent
+ */
+public class ExecutionTraceTest {
+
+    /**
+     * run 200 once, then overwrite it with 7001 through Fx55 and run it again
+     */
+    private static final byte[] REWRITING_ROM = {
+            0x65, 0x33, // 200: LD V5, 33
+            (byte) 0xA2, 0x00, // 202: LD I, 200
+            0x60, 0x70, // 204: LD V0, 70
+            0x61, 0x01, // 206: LD V1, 01
+            (byte) 0xF1, 0x55, // 208: LD [I], V1
+            0x12, 0x00, // 20A: JP 200
+    };
+
+    private static final byte[] COUNTING_ROM = {
+            0x70, 0x01, // 200: ADD V0, 1
+            0x71, 0x01, // 202: ADD V1, 1
+            0x12, 0x00, // 204: JP 200
+    };
+
+    private static Chip8 create(byte[] rom, ExecutionMode mode) {
+        Chip8 chip8 = new Chip8(Rom.of(rom), new Screen(), new Keyboard(), mode, CompatibilityProfile.DEFAULT);
+        chip8.setTracing(true);
+        return chip8;
+    }
+
+    @Test
+    public void rewrittenCodeShowsWhatRan() {
+        Chip8 chip8 = create(REWRITING_ROM, ExecutionMode.INTERPRETER);
+        chip8.step(7);
+        String[] lines = chip8.dumpTrace().split(System.lineSeparator());
+        assertEquals(7, lines.length);
+        assertTrue(lines[0], lines[0].startsWith("  200  6533"));
+        assertEquals("  208  F155 LD_I_VX", lines[4]);
+        // only the jump shows registers
+        assertTrue(lines[5], lines[5].startsWith("  20A  1200") && lines[5].endsWith("I=200 Vx=00 Vy=70"));
+        assertTrue(lines[6], lines[6].startsWith("  200  7001"));
+    }
+
+    @Test
+    public void everyModeLeavesTheSameTrace() {
+        int cycles = 3 * Recompiler.HOT_THRESHOLD + 3 * ExecutionTrace.CAPACITY + 1;
+        String expected = null;
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            Chip8 chip8 = create(COUNTING_ROM, mode);
+            chip8.step(cycles);
+            String dump = chip8.dumpTrace();
+            assertEquals(ExecutionTrace.CAPACITY, dump.split(System.lineSeparator()).length);
+            if (expected == null) {
+                expected = dump;
+            }
+            assertEquals(mode.name(), expected, dump);
+        }
+    }
+
+    @Test
+    public void tracingIsOffByDefault() {
+        Chip8 chip8 = new Chip8(REWRITING_ROM, new Screen(), new Keyboard());
+        chip8.step(3);
+        assertEquals("", chip8.dumpTrace());
+    }
+
+    @Test
+    public void nothingIsRecordedWhileTracingIsOff() {
+        Chip8 chip8 = create(REWRITING_ROM, ExecutionMode.INTERPRETER);
+        chip8.step(3);
+        chip8.setTracing(false);
+        chip8.step(3);
+        assertEquals("", chip8.dumpTrace());
+    }
+}
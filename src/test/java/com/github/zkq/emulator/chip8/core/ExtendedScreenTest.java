@@ -0,0 +1,70 @@
+package com.github.zkq.emulator.chip8.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 11:40
+ * <p>
+ * {@link ExtendedScreen} drawing and the dirty rows it reports.
+ *
+ * @author agent
+ */
+public class ExtendedScreenTest {
+
+    /**
+     * draws one 8 pixel row at (120, 63), in high resolution for the extended machines
+     */
+    private static final byte[] CORNER_ROM = {
+            0x00, (byte) 0xFF, // 200: HIGH
+            0x60, 0x78, // 202: LD V0, 120
+            0x61, 0x3F, // 204: LD V1, 63
+            (byte) 0xA2, 0x0C, // 206: LD I, 20C
+            (byte) 0xD0, 0x11, // 208: DRW V0, V1, 1
+            0x12, 0x0A, // 20A: JP 20A
+            (byte) 0xFF, 0x00, // 20C: sprite
+    };
+
+    @Test
+    public void xorPixelsReportsTheRowItDrewOn() {
+        ExtendedScreen screen = new ExtendedScreen();
+        int[] dirty = new int[1];
+        screen.addListener((s, rows, columns) -> dirty[0] = rows);
+        assertFalse(screen.xorPixels(3, 37, (byte) 0x81));
+        screen.publishFrame();
+        assertEquals(1 << 5, dirty[0]);
+        assertTrue(screen.getPixel(3, 5) && screen.getPixel(10, 5));
+    }
+
+    @Test
+    public void classicMachineOnAnExtendedScreenPublishesFrames() {
+        ExtendedScreen screen = new ExtendedScreen();
+        Chip8 chip8 = new Chip8(Rom.of(CORNER_ROM), screen, new Keyboard(), ExecutionMode.INTERPRETER,
+                                CompatibilityProfile.DEFAULT);
+        int[] dirty = new int[1];
+        screen.addListener((s, rows, columns) -> dirty[0] |= rows);
+        chip8.runFrame();
+        // 00FF is not a CHIP-8 instruction, the sprite lands at (120 & 63, 63 & 31)
+        assertEquals(1 << 31, dirty[0]);
+        assertTrue(screen.getPixel(56, 31) && screen.getPixel(63, 31));
+    }
+
+    @Test
+    public void highResolutionDrawReportsTheHalvedRow() {
+        ExtendedScreen screen = new ExtendedScreen();
+        Chip8 chip8 = new Chip8(Rom.of(CORNER_ROM), screen, new Keyboard(), ExecutionMode.INTERPRETER,
+                                CompatibilityProfile.SUPER_CHIP);
+        int[] dirty = new int[1];
+        chip8.runFrame();
+        screen.addListener((s, rows, columns) -> dirty[0] |= rows);
+        screen.xorPixels(0, 62, (byte) 0x80);
+        screen.publishFrame();
+        assertEquals(1 << 31, dirty[0]);
+        assertEquals(0x1, screen.getColor(120, 63));
+        assertEquals(0x1, screen.getColor(0, 62));
+        assertEquals(128, screen.getWidth());
+    }
+}
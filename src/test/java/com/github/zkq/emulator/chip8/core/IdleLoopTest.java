@@ -0,0 +1,81 @@
+package com.github.zkq.emulator.chip8.core;
+
+import com.github.zkq.emulator.chip8.Snapshots;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 18:00
+ * <p>
+ * Skipping an idle loop never changes what the program computes.
+ *
+ * @author agent
+ */
+public class IdleLoopTest {
+
+    /**
+     * enters the loop in the middle, the second pass sets V0, only the third sets V1, after that nothing changes
+     */
+    private static final byte[] MID_ENTRY_ROM = {
+            0x12, 0x08, // 200: JP 208
+            0x30, 0x00, // 202: SE V0, 0
+            0x61, 0x01, // 204: LD V1, 1
+            0x60, 0x01, // 206: LD V0, 1
+            0x62, 0x00, // 208: LD V2, 0
+            0x12, 0x02, // 20A: JP 202
+    };
+
+    /**
+     * a delay timer wait: V0 = DT until it reaches 0, then V3 = 7
+     */
+    private static final byte[] DELAY_ROM = {
+            0x60, 0x05, // 200: LD V0, 5
+            (byte) 0xF0, 0x15, // 202: LD DT, V0
+            (byte) 0xF0, 0x07, // 204: LD V0, DT
+            0x30, 0x00, // 206: SE V0, 0
+            0x12, 0x04, // 208: JP 204
+            0x63, 0x07, // 20A: LD V3, 7
+            0x12, 0x0C, // 20C: JP 20C
+    };
+
+    private static Chip8 create(byte[] rom, boolean idleDetection) {
+        Chip8 chip8 = new Chip8(Rom.of(rom), new Screen(), new Keyboard(), ExecutionMode.INTERPRETER,
+                                CompatibilityProfile.DEFAULT);
+        chip8.setIdleDetection(idleDetection);
+        // enough for several passes of the loop within a frame
+        chip8.setCyclesPerFrame(100);
+        return chip8;
+    }
+
+    private static byte[] registers(Chip8 chip8) {
+        byte[] state = Snapshots.of(chip8);
+        return Arrays.copyOfRange(state, InputJournalTest.V_OFFSET, InputJournalTest.V_OFFSET + 0x10);
+    }
+
+    private static Chip8 assertSameRegisters(byte[] rom) {
+        Chip8 detecting = create(rom, true);
+        Chip8 running = create(rom, false);
+        for (int f = 0; f < 10; f++) {
+            detecting.runFrame();
+            running.runFrame();
+            assertTrue("frame " + f, Arrays.equals(registers(running), registers(detecting)));
+            assertEquals(running.getCycles(), detecting.getCycles());
+        }
+        assertTrue("the loop was never skipped", detecting.getIdleCycles() > 0);
+        return detecting;
+    }
+
+    @Test
+    public void loopEnteredInTheMiddleRunsUntilItSettles() {
+        assertEquals(1, (int) registers(assertSameRegisters(MID_ENTRY_ROM))[1]);
+    }
+
+    @Test
+    public void delayTimerWaitIsSkipped() {
+        assertEquals(7, (int) registers(assertSameRegisters(DELAY_ROM))[3]);
+    }
+}
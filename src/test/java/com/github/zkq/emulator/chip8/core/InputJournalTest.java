@@ -0,0 +1,105 @@
+package com.github.zkq.emulator.chip8.core;
+
+import com.github.zkq.emulator.chip8.Snapshots;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 10:15
+ * <p>
+ * A run replayed from its {@link InputJournal} ends in the same state as the recorded run.
+ *
+ * @author agent
+ */
+public class InputJournalTest {
+
+    /**
+     * wait for a key, mix it and a random byte into V1, count in V3 while the key is held, then wait again
+     */
+    private static final byte[] KEY_ROM = {
+            (byte) 0xF0, 0x0A, // 200: LD V0, K
+            (byte) 0x81, 0x04, // 202: ADD V1, V0
+            (byte) 0xC2, (byte) 0xFF, // 204: RND V2, FF
+            (byte) 0x81, 0x24, // 206: ADD V1, V2
+            (byte) 0xE0, (byte) 0x9E, // 208: SKP V0
+            0x12, 0x00, // 20A: JP 200
+            0x73, 0x01, // 20C: ADD V3, 1
+            0x12, 0x08, // 20E: JP 208
+    };
+
+    /**
+     * frame, key, pressed: the input of the recorded run
+     */
+    private static final int[][] SCRIPT = {
+            {3, 0x5, 1}, {5, 0x5, 0}, {9, 0xA, 1}, {9, 0xA, 0}, {9, 0x2, 1}, {12, 0x7, 1}, {14, 0x2, 0},
+            {20, 0x7, 0}, {21, 0xF, 1}, {22, 0xF, 0}, {22, 0xF, 1}, {30, 0xF, 0},
+    };
+    private static final int FRAMES = 40;
+    /**
+     * offset of V0 in a snapshot: magic, version, memory size, 4 KB of memory
+     */
+    static final int V_OFFSET = 4 + 2 + 4 + 0x1000;
+
+    private static Chip8 create() {
+        return new Chip8(Rom.of(KEY_ROM), new Screen(), new Keyboard(), ExecutionMode.INTERPRETER,
+                         CompatibilityProfile.DEFAULT);
+    }
+
+    private static InputJournal record(Chip8 chip8) {
+        InputJournal journal = InputJournal.record();
+        chip8.setInputJournal(journal);
+        int event = 0;
+        for (int f = 0; f < FRAMES; f++) {
+            while (event < SCRIPT.length && SCRIPT[event][0] == f) {
+                chip8.getKeyboard().setKey(SCRIPT[event][1], SCRIPT[event][2] != 0);
+                event++;
+            }
+            chip8.runFrame();
+        }
+        return journal;
+    }
+
+    private static byte[] replay(InputJournal recorded) {
+        Chip8 chip8 = create();
+        chip8.setSeed(~recorded.hashCode());
+        chip8.setInputJournal(InputJournal.replay(recorded));
+        // live input is ignored while replaying
+        chip8.getKeyboard().setKey(0x3, true);
+        SnapshotTest.runFrames(chip8, FRAMES);
+        return Snapshots.of(chip8);
+    }
+
+    @Test
+    public void replayEndsInTheRecordedState() {
+        Chip8 chip8 = create();
+        InputJournal journal = record(chip8);
+        assertEquals(1 + SCRIPT.length, journal.size());
+        byte[] recorded = Snapshots.of(chip8);
+        assertFalse("the program never saw a key", chip8.getCycles() == 0 || recorded[V_OFFSET + 3] == 0);
+
+        assertTrue(Arrays.equals(recorded, replay(journal)));
+    }
+
+    @Test
+    public void savedJournalReplaysTheSame() throws IOException {
+        Chip8 chip8 = create();
+        InputJournal journal = record(chip8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        journal.save(new DataOutputStream(bytes));
+        InputJournal loaded = InputJournal.load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(InputJournal.Mode.REPLAY, loaded.getMode());
+        assertEquals(journal.size(), loaded.size());
+
+        assertTrue(Arrays.equals(Snapshots.of(chip8), replay(loaded)));
+    }
+}
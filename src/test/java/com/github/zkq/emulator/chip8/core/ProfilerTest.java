@@ -0,0 +1,87 @@
+package com.github.zkq.emulator.chip8.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/20 10:00
+ * <p>
+ * {@link Profiler} counts every executed instruction once, in every {@link ExecutionMode}.
+ *
+ * @author agent
+ */
+public class ProfilerTest {
+
+    /**
+     * count V0 up to 10, then stay at 208
+     */
+    private static final byte[] LOOP_ROM = {
+            0x60, 0x00, // 200: LD V0, 0
+            0x70, 0x01, // 202: ADD V0, 1
+            0x30, 0x0A, // 204: SE V0, 10
+            0x12, 0x02, // 206: JP 202
+            0x12, 0x08, // 208: JP 208
+    };
+
+    private static Profiler profile(ExecutionMode mode, int cycles) {
+        Chip8 chip8 = new Chip8(Rom.of(LOOP_ROM), new Screen(), new Keyboard(), mode, CompatibilityProfile.DEFAULT);
+        // a skipped idle loop is not executed, so it would not be counted
+        chip8.setIdleDetection(false);
+        Profiler profiler = new Profiler();
+        chip8.setProfiler(profiler);
+        chip8.step(cycles);
+        return profiler;
+    }
+
+    @Test
+    public void countsPerOpcodeAndAddress() {
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            Profiler profiler = profile(mode, 33);
+            assertEquals(mode.name(), 33L, profiler.getInstructions());
+            assertEquals(1L, profiler.getCount(Opcode.LD_VX_BYTE));
+            assertEquals(10L, profiler.getCount(Opcode.ADD_VX_BYTE));
+            assertEquals(10L, profiler.getCount(Opcode.SE_VX_BYTE));
+            assertEquals(12L, profiler.getCount(Opcode.JP));
+            assertEquals(0L, profiler.getCount(Opcode.DRW));
+            assertEquals(10L, profiler.getCount(0x202));
+            assertEquals(9L, profiler.getCount(0x206));
+            assertEquals(3L, profiler.getCount(0x208));
+
+            Map<String, Long> counts = profiler.getOpcodeCounts();
+            assertEquals(Arrays.asList("JP", "SE_VX_BYTE", "LD_VX_BYTE", "ADD_VX_BYTE"),
+                         Arrays.asList(counts.keySet().toArray()));
+        }
+    }
+
+    @Test
+    public void hotAddressesComeMostExecutedFirst() {
+        Profiler profiler = profile(ExecutionMode.INTERPRETER, 33);
+        int[] hot = profiler.getHotAddresses(5);
+        assertEquals(5, hot.length);
+        // 202 and 204 ran 10 times each
+        assertTrue(hot[0] + hot[1] == 0x202 + 0x204 && hot[0] != hot[1]);
+        assertEquals(0x206, hot[2]);
+        assertEquals(0x208, hot[3]);
+        assertEquals(0x200, hot[4]);
+        assertEquals(2, profiler.getHotAddresses(2).length);
+        assertEquals(5, profiler.getHotAddresses(100).length);
+
+        profiler.setTopN(3);
+        assertEquals("0x206 JP 9", profiler.getHotAddresses().get(2));
+    }
+
+    @Test
+    public void resetClearsEveryCount() {
+        Profiler profiler = profile(ExecutionMode.INTERPRETER, 33);
+        profiler.reset();
+        assertEquals(0L, profiler.getInstructions());
+        assertEquals(0L, profiler.getCount(0x202));
+        assertTrue(profiler.getOpcodeCounts().isEmpty());
+        assertEquals(0, profiler.getHotAddresses(5).length);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.zkq.emulator.chip8.core;
+
+import com.github.zkq.emulator.chip8.BundledRoms;
+import com.github.zkq.emulator.chip8.Snapshots;
+import org.junit.Test;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 11:10
+ * <p>
+ * The cached and recompiled modes leave exactly the state the interpreter leaves.
+ *
+ * @author agent
+ */
+public class RecompilerTest {
+
+    private static final int FRAMES = 120;
+    private static final int CHECK_EVERY = 10;
+
+    @Test
+    public void everyModeMatchesTheInterpreter() {
+        for (String rom : BundledRoms.NAMES) {
+            for (CompatibilityProfile profile : CompatibilityProfile.values()) {
+                Chip8 interpreter = SnapshotTest.create(rom, profile, ExecutionMode.INTERPRETER);
+                Chip8 cached = SnapshotTest.create(rom, profile, ExecutionMode.CACHED);
+                Chip8 recompiler = SnapshotTest.create(rom, profile, ExecutionMode.RECOMPILER);
+                for (int f = 0; f < FRAMES; f += CHECK_EVERY) {
+                    SnapshotTest.runFrames(interpreter, CHECK_EVERY);
+                    SnapshotTest.runFrames(cached, CHECK_EVERY);
+                    SnapshotTest.runFrames(recompiler, CHECK_EVERY);
+                    byte[] expected = Snapshots.of(interpreter);
+                    String where = rom + " " + profile + " frame " + (f + CHECK_EVERY);
+                    assertTrue(where + " CACHED", Arrays.equals(expected, Snapshots.of(cached)));
+                    assertTrue(where + " RECOMPILER", Arrays.equals(expected, Snapshots.of(recompiler)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void switchingModesMidRunMatchesTheInterpreter() {
+        Chip8 interpreter = SnapshotTest.create("alu", CompatibilityProfile.DEFAULT, ExecutionMode.INTERPRETER);
+        Chip8 switching = SnapshotTest.create("alu", CompatibilityProfile.DEFAULT, ExecutionMode.RECOMPILER);
+        ExecutionMode[] modes = ExecutionMode.values();
+        for (int f = 0; f < FRAMES; f++) {
+            switching.setExecutionMode(modes[f / 7 % modes.length]);
+            interpreter.runFrame();
+            switching.runFrame();
+        }
+        assertTrue(Arrays.equals(Snapshots.of(interpreter), Snapshots.of(switching)));
+    }
+
+    @Test
+    public void blocksAreHiddenPackagePrivateClasses() {
+        Memory memory = new Memory(Rom.of(BundledRoms.load("alu")), 0x1000);
+        Recompiler recompiler = new Recompiler(memory, CompatibilityProfile.DEFAULT);
+        CompiledBlock block = null;
+        for (int pc = Rom.LOAD_ADDRESS; block == null && pc < 0x300; pc += 2) {
+            for (int n = 0; n < Recompiler.HOT_THRESHOLD && block == null; n++) {
+                block = recompiler.lookup(pc);
+            }
+        }
+        assertNotNull("alu has no compilable block", block);
+        assertTrue(block.getClass().isHidden());
+        assertFalse(Modifier.isPublic(block.getClass().getModifiers()));
+        assertFalse(Modifier.isPublic(CompiledBlock.class.getModifiers()));
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.zkq.emulator.chip8.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/20 09:10
+ * <p>
+ * What {@link RomAnalysis} finds in small programs.
+ *
+ * @author agent
+ */
+public class RomAnalysisTest {
+
+    /**
+     * a drawing block, a subroutine, a skip and two jumps, then a sprite
+     */
+    private static final byte[] FLOW_ROM = {
+            (byte) 0xA2, 0x12, // 200: LD I, 212
+            (byte) 0xD0, 0x15, // 202: DRW V0, V1, 5
+            0x22, 0x0C, // 204: CALL 20C
+            0x30, 0x00, // 206: SE V0, 0
+            0x12, 0x06, // 208: JP 206
+            0x12, 0x0A, // 20A: JP 20A
+            (byte) 0x80, 0x16, // 20C: SHR V0
+            0x00, (byte) 0xEE, // 20E: RET
+            0x00, 0x00, // 210: never reached
+            (byte) 0xF0, (byte) 0x90, (byte) 0xF0, (byte) 0x90, (byte) 0xF0, // 212: sprite
+    };
+
+    /**
+     * an XO-CHIP long load of an address past the program image
+     */
+    private static final byte[] LONG_LOAD_ROM = {
+            (byte) 0xF0, 0x00, 0x20, 0x00, // 200: LD I, 2000
+            0x12, 0x04, // 204: JP 204
+    };
+
+    @Test
+    public void blocksEndAtControlFlow() {
+        RomAnalysis analysis = RomAnalysis.of(FLOW_ROM);
+        int[] starts = {0x200, 0x206, 0x208, 0x20A, 0x20C};
+        int[] ends = {0x206, 0x208, 0x20A, 0x20C, 0x210};
+        assertEquals(starts.length, analysis.getBlockCount());
+        for (int b = 0; b < starts.length; b++) {
+            assertEquals(starts[b], analysis.getBlockStart(b));
+            assertEquals(ends[b], analysis.getBlockEnd(b));
+        }
+        assertEquals(0, analysis.blockAt(0x202));
+        assertEquals(4, analysis.blockAt(0x20E));
+        assertEquals(-1, analysis.blockAt(0x210));
+    }
+
+    @Test
+    public void successorsFollowCallsSkipsAndJumps() {
+        RomAnalysis analysis = RomAnalysis.of(FLOW_ROM);
+        // the call target, then the return address
+        assertTrue(Arrays.equals(new int[]{0x20C, 0x206}, analysis.getSuccessors(0)));
+        // the skip target, then the fall-through
+        assertTrue(Arrays.equals(new int[]{0x20A, 0x208}, analysis.getSuccessors(1)));
+        assertTrue(Arrays.equals(new int[]{0x206}, analysis.getSuccessors(2)));
+        assertTrue(Arrays.equals(new int[]{0x20A}, analysis.getSuccessors(3)));
+        assertEquals(0, analysis.getSuccessors(4).length);
+        assertTrue(Arrays.equals(new int[]{0x20C}, analysis.getCallTargets()));
+        assertTrue(Arrays.equals(new int[]{0x206, 0x20A}, analysis.getJumpTargets()));
+        assertFalse(analysis.hasIndirectJumps());
+    }
+
+    @Test
+    public void spriteIsDataAndUnreachedBytesAreNeither() {
+        RomAnalysis analysis = RomAnalysis.of(FLOW_ROM);
+        for (int addr = 0x200; addr < 0x210; addr++) {
+            assertTrue(Integer.toHexString(addr), analysis.isCode(addr) && !analysis.isData(addr));
+        }
+        assertFalse(analysis.isCode(0x210) || analysis.isData(0x210));
+        for (int addr = 0x212; addr < 0x217; addr++) {
+            assertTrue(Integer.toHexString(addr), analysis.isData(addr) && !analysis.isCode(addr));
+        }
+        assertFalse(analysis.isData(0x217));
+    }
+
+    @Test
+    public void prewarmDecodesReachableCodeForTheProfile() {
+        Rom rom = Rom.of(FLOW_ROM);
+        Instruction[] cache = new Instruction[Rom.MEMORY_SIZE >> 1];
+        RomAnalysis.of(rom).prewarm(cache, new Memory(rom, Rom.MEMORY_SIZE), CompatibilityProfile.DEFAULT);
+        assertEquals(0xA212, cache[0x200 >> 1].op);
+        assertEquals(Opcode.SHR, cache[0x20C >> 1].opcode);
+        assertNull(cache[0x210 >> 1]);
+        assertNull(cache[0x212 >> 1]);
+
+        Arrays.fill(cache, null);
+        RomAnalysis.of(rom).prewarm(cache, new Memory(rom, Rom.MEMORY_SIZE), CompatibilityProfile.COSMAC_VIP);
+        assertEquals(Opcode.SHR_VY, cache[0x20C >> 1].opcode);
+
+        // a written page is left to decode on execution
+        Arrays.fill(cache, null);
+        Memory memory = new Memory(rom, Rom.MEMORY_SIZE);
+        memory.write(0x210, (byte) 0);
+        RomAnalysis.of(rom).prewarm(cache, memory, CompatibilityProfile.DEFAULT);
+        assertNull(cache[0x200 >> 1]);
+    }
+
+    @Test
+    public void longLoadAbovePagesIsNotData() {
+        RomAnalysis.clearCache();
+        RomAnalysis analysis = RomAnalysis.of(LONG_LOAD_ROM);
+        assertTrue(analysis.isInstruction(0x200));
+        assertTrue(analysis.isCode(0x202) && !analysis.isInstruction(0x202));
+        assertTrue(analysis.isInstruction(0x204));
+        assertFalse(analysis.isData(0x200));
+        // the jump to itself starts a block
+        assertEquals(2, analysis.getBlockCount());
+        assertEquals(0x204, analysis.getBlockEnd(0));
+
+        Chip8 chip8 = new Chip8(Rom.of(LONG_LOAD_ROM), new ExtendedScreen(), new Keyboard(), ExecutionMode.CACHED,
+                                CompatibilityProfile.XO_CHIP);
+        assertEquals(ExecutionMode.CACHED, chip8.getExecutionMode());
+        chip8.step(3);
+    }
+}
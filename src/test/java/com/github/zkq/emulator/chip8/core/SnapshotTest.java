@@ -0,0 +1,119 @@
+package com.github.zkq.emulator.chip8.core;
+
+import com.github.zkq.emulator.chip8.BundledRoms;
+import com.github.zkq.emulator.chip8.Snapshots;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Date:2026/10/19 10:05
+ * <p>
+ * {@link Chip8#snapshot(ByteBuffer)} and {@link Chip8#restore(ByteBuffer)}.
+ *
+ * @author agent
+ */
+public class SnapshotTest {
+
+    static Chip8 create(String rom, CompatibilityProfile profile, ExecutionMode mode) {
+        Chip8 chip8 = new Chip8(Rom.of(BundledRoms.load(rom)), profile.getMachine().createScreen(), new Keyboard(),
+                                mode, profile);
+        chip8.setSeed(1);
+        return chip8;
+    }
+
+    static void runFrames(Chip8 chip8, int frames) {
+        for (int f = 0; f < frames; f++) {
+            chip8.runFrame();
+        }
+    }
+
+    @Test
+    public void restoredInstanceContinuesIdentically() {
+        for (String rom : BundledRoms.NAMES) {
+            for (CompatibilityProfile profile : CompatibilityProfile.values()) {
+                Chip8 original = create(rom, profile, ExecutionMode.INTERPRETER);
+                runFrames(original, 20);
+                byte[] state = Snapshots.of(original);
+
+                Chip8 copy = create(rom, profile, ExecutionMode.INTERPRETER);
+                copy.setSeed(2);
+                copy.restore(ByteBuffer.wrap(state));
+                assertTrue(rom + " " + profile, Arrays.equals(state, Snapshots.of(copy)));
+
+                runFrames(original, 20);
+                runFrames(copy, 20);
+                assertTrue(rom + " " + profile, Arrays.equals(Snapshots.of(original), Snapshots.of(copy)));
+            }
+        }
+    }
+
+    @Test
+    public void snapshotOfAnotherProfileLeavesTheInstanceUntouched() {
+        Chip8 extended = create("maze", CompatibilityProfile.SUPER_CHIP, ExecutionMode.INTERPRETER);
+        runFrames(extended, 5);
+        Chip8 chip8 = create("maze", CompatibilityProfile.DEFAULT, ExecutionMode.INTERPRETER);
+        runFrames(chip8, 3);
+        byte[] before = Snapshots.of(chip8);
+        try {
+            chip8.restore(ByteBuffer.wrap(Snapshots.of(extended)));
+            fail("restored a SUPER_CHIP snapshot into a DEFAULT instance");
+        } catch (IllegalArgumentException expected) {
+            // the profile is checked before anything is overwritten
+        }
+        assertTrue(Arrays.equals(before, Snapshots.of(chip8)));
+    }
+
+    @Test
+    public void keyboardStateSurvivesASnapshot() {
+        Chip8 chip8 = create("maze", CompatibilityProfile.DEFAULT, ExecutionMode.INTERPRETER);
+        Keyboard keyboard = chip8.getKeyboard();
+        keyboard.setKey(0xA, true);
+        keyboard.setKey(0xA, false);
+        keyboard.setKey(5, true);
+        runFrames(chip8, 1);
+
+        Chip8 copy = create("maze", CompatibilityProfile.DEFAULT, ExecutionMode.INTERPRETER);
+        copy.restore(ByteBuffer.wrap(Snapshots.of(chip8)));
+        assertEquals(keyboard.getState(), copy.getKeyboard().getState());
+        assertTrue(copy.getKeyboard().isPressed(5));
+        assertFalse(copy.getKeyboard().isPressed(0xA));
+    }
+
+    @Test
+    public void snapshotOfAnotherVersionIsRejected() {
+        Chip8 chip8 = create("alu", CompatibilityProfile.DEFAULT, ExecutionMode.INTERPRETER);
+        runFrames(chip8, 5);
+        ByteBuffer state = ByteBuffer.wrap(Snapshots.of(chip8));
+        // right after the magic
+        state.putShort(4, (short) (state.getShort(4) - 1));
+        try {
+            chip8.restore(state);
+            fail("restored a snapshot of another version");
+        } catch (IllegalArgumentException expected) {
+            // only the current layout is read
+        }
+    }
+
+    @Test
+    public void truncatedSnapshotLeavesTheInstanceUntouched() {
+        Chip8 chip8 = create("alu", CompatibilityProfile.DEFAULT, ExecutionMode.INTERPRETER);
+        runFrames(chip8, 5);
+        byte[] state = Snapshots.of(chip8);
+        runFrames(chip8, 5);
+        byte[] before = Snapshots.of(chip8);
+        try {
+            chip8.restore(ByteBuffer.wrap(Arrays.copyOf(state, state.length - 1)));
+            fail("restored a truncated snapshot");
+        } catch (IllegalArgumentException expected) {
+            // the size is checked before anything is overwritten
+        }
+        assertTrue(Arrays.equals(before, Snapshots.of(chip8)));
+    }
+}
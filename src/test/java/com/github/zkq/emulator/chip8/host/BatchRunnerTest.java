@@ -0,0 +1,59 @@
+package com.github.zkq.emulator.chip8.host;
+
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Screen;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 18:40
+ * <p>
+ * Sessions of instances waiting for input complete after their frames, or when cancelled.
+ *
+ * @author agent
+ */
+public class BatchRunnerTest {
+
+    private static final byte[] KEY_WAIT_ROM = {
+            (byte) 0xF0, 0x0A, // 200: LD V0, K
+            0x12, 0x02, // 202: JP 202
+    };
+
+    private static final byte[] KEY_LOOP_ROM = {
+            (byte) 0xE0, (byte) 0x9E, // 200: SKP V0
+            0x12, 0x00, // 202: JP 200
+            0x12, 0x04, // 204: JP 204
+    };
+
+    @Test(timeout = 20_000)
+    public void waitingSessionsCompleteAfterTheirFrames() throws Exception {
+        try (BatchRunner runner = new BatchRunner(2)) {
+            for (byte[] rom : new byte[][]{KEY_WAIT_ROM, KEY_LOOP_ROM}) {
+                Chip8 chip8 = new Chip8(rom, new Screen(), new Keyboard());
+                BatchRunner.Session session = runner.submit(chip8, 100);
+                session.completion().get(10, TimeUnit.SECONDS);
+                assertEquals(100L, session.getFrames());
+                assertTrue(chip8.isWaitingForInput());
+            }
+        }
+    }
+
+    @Test(timeout = 20_000)
+    public void endlessWaitingSessionCompletesOnCancel() throws Exception {
+        try (BatchRunner runner = new BatchRunner(2)) {
+            Chip8 chip8 = new Chip8(KEY_WAIT_ROM, new Screen(), new Keyboard());
+            BatchRunner.Session session = runner.submit(chip8, Long.MAX_VALUE);
+            while (session.getFrames() == 0) {
+                Thread.sleep(1);
+            }
+            session.cancel();
+            session.completion().get(10, TimeUnit.SECONDS);
+            assertTrue(session.isDone());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.zkq.emulator.chip8.record;
+
+import com.github.zkq.emulator.chip8.BundledRoms;
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.CompatibilityProfile;
+import com.github.zkq.emulator.chip8.core.ExecutionMode;
+import com.github.zkq.emulator.chip8.core.ExtendedScreen;
+import com.github.zkq.emulator.chip8.core.InputJournal;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Rom;
+import com.github.zkq.emulator.chip8.core.Screen;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 15:50
+ * <p>
+ * A {@link SessionPlayer} sees every frame and every key event a {@link SessionRecorder} recorded.
+ *
+ * @author agent
+ */
+public class SessionRecorderTest {
+
+    private static final int FRAMES = 300;
+
+    @Test
+    public void playerSeesEveryFrameAndKeyEvent() throws Exception {
+        Path file = Files.createTempFile("session", ".c8r");
+        try {
+            Chip8 chip8 = new Chip8(BundledRoms.load("maze"), new Screen(), new Keyboard());
+            List<long[]> frames = new ArrayList<>();
+            InputJournal journal;
+            int first;
+            try (SessionRecorder recorder = SessionRecorder.open(file, chip8, 16)) {
+                journal = chip8.getInputJournal();
+                first = journal.getApplied();
+                for (int f = 0; f < FRAMES; f++) {
+                    if (f % 7 == 3) {
+                        // pressed and released before the program runs again
+                        chip8.getKeyboard().setKey(f % 16, true);
+                        chip8.getKeyboard().setKey(f % 16, false);
+                    }
+                    if (f == 100) {
+                        // more events than one record holds
+                        for (int e = 0; e < SessionRecorder.MAX_EVENTS + 5; e++) {
+                            chip8.getKeyboard().setKey(e % 16, e / 16 % 2 == 0);
+                        }
+                    }
+                    chip8.runFrame();
+                    recorder.record();
+                    long[] rows = new long[Screen.HIGH];
+                    chip8.getScreen().copyRows(rows);
+                    frames.add(rows);
+                }
+            }
+            assertNull("close detaches the journal open attached", chip8.getInputJournal());
+
+            try (SessionPlayer player = SessionPlayer.open(file)) {
+                assertEquals(FRAMES, player.getFrameCount());
+                int event = first;
+                while (player.next()) {
+                    int f = player.getFrame();
+                    assertTrue("frame " + f, Arrays.equals(frames.get(f), player.getRows()));
+                    for (int e = 0; e < player.getEventCount(); e++, event++) {
+                        assertEquals(journal.getCycle(event), player.getEventCycle(e));
+                        assertEquals(journal.getPressedMask(event), player.getEventKeys(e));
+                    }
+                    if (f % 7 == 3 && f != 101) {
+                        assertEquals("frame " + f, 2, player.getEventCount());
+                        assertEquals(1, player.getEventKeys(0) >>> f % 16 & 1);
+                        assertEquals(0, player.getEventKeys(1) >>> f % 16 & 1);
+                    }
+                }
+                assertEquals(journal.size(), event);
+
+                for (int n : new int[]{FRAMES - 1, 0, 17, 16, 150, 149, 3}) {
+                    player.seek(n);
+                    assertTrue("seek " + n, Arrays.equals(frames.get(n), player.getRows()));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void extendedMachinesAreRefused() throws Exception {
+        Path file = Files.createTempFile("session", ".c8r");
+        Chip8 chip8 = new Chip8(Rom.of(BundledRoms.load("maze")), new ExtendedScreen(), new Keyboard(),
+                                ExecutionMode.INTERPRETER, CompatibilityProfile.SUPER_CHIP);
+        try {
+            SessionRecorder.open(file, chip8).close();
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.zkq.emulator.chip8.state;
+
+import com.github.zkq.emulator.chip8.BundledRoms;
+import com.github.zkq.emulator.chip8.Snapshots;
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Screen;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 10:30
+ * <p>
+ * {@link DeltaCodec} round trips, and {@link RewindBuffer} restoring the states it recorded.
+ *
+ * @author agent
+ */
+public class DeltaCodecTest {
+
+    private static void assertRoundTrip(byte[] cur, byte[] base) {
+        byte[] encoded = new byte[DeltaCodec.maxEncodedSize(cur.length)];
+        int length = DeltaCodec.encode(cur, base, encoded, 0);
+        assertTrue(length <= encoded.length);
+        byte[] state = base == null ? new byte[cur.length] : base.clone();
+        DeltaCodec.apply(encoded, 0, length, state);
+        assertTrue(Arrays.equals(cur, state));
+    }
+
+    @Test
+    public void roundTrip() {
+        Random random = new Random(7);
+        for (int size : new int[]{1, 3, 4, 5, 100, 4500}) {
+            for (int changes : new int[]{0, 1, 2, 10, size}) {
+                byte[] base = new byte[size];
+                random.nextBytes(base);
+                byte[] cur = base.clone();
+                for (int c = 0; c < changes; c++) {
+                    cur[random.nextInt(size)] ^= (byte) (1 + random.nextInt(255));
+                }
+                assertRoundTrip(cur, base);
+                assertRoundTrip(cur, null);
+            }
+        }
+    }
+
+    @Test
+    public void identicalStatesEncodeToNothing() {
+        byte[] state = new byte[300];
+        new Random(3).nextBytes(state);
+        assertEquals(0, DeltaCodec.encode(state, state.clone(), new byte[DeltaCodec.maxEncodedSize(300)], 0));
+    }
+
+    @Test
+    public void alternatingRunsStayWithinTheBound() {
+        byte[] base = new byte[1000];
+        byte[] cur = new byte[1000];
+        for (int j = 0; j < cur.length; j += 4) {
+            cur[j] = 1;
+        }
+        assertRoundTrip(cur, base);
+    }
+
+    @Test
+    public void rewindRestoresRecordedStates() {
+        Chip8 chip8 = new Chip8(BundledRoms.load("maze"), new Screen(), new Keyboard());
+        chip8.setSeed(5);
+        RewindBuffer rewind = new RewindBuffer(chip8, 50, 8, 1024 * 1024);
+        List<byte[]> states = new ArrayList<>();
+        for (int f = 0; f < 80; f++) {
+            chip8.runFrame();
+            rewind.record();
+            states.add(Snapshots.of(chip8));
+        }
+        // a full ring drops frames up to the next keyframe
+        int available = rewind.available();
+        assertTrue(available >= 49 - 8);
+        for (int back : new int[]{0, 1, 7, 8, 20}) {
+            int frames = rewind.rewind(back);
+            assertEquals(back, frames);
+            states.subList(states.size() - back, states.size()).clear();
+            assertTrue("rewound " + back, Arrays.equals(states.get(states.size() - 1), Snapshots.of(chip8)));
+        }
+        assertEquals(available - 36, rewind.available());
+    }
+}
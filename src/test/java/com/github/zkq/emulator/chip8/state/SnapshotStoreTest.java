@@ -0,0 +1,67 @@
+package com.github.zkq.emulator.chip8.state;
+
+import com.github.zkq.emulator.chip8.BundledRoms;
+import com.github.zkq.emulator.chip8.Snapshots;
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Screen;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 15:20
+ * <p>
+ * {@link SnapshotStore} across several mapped segments, and reopened from its file.
+ *
+ * @author agent
+ */
+public class SnapshotStoreTest {
+
+    @Test
+    public void reopenedStoreRestoresEverySnapshot() throws Exception {
+        Path file = Files.createTempFile("snapshots", ".c8s");
+        try {
+            Chip8 chip8 = new Chip8(BundledRoms.load("maze"), new Screen(), new Keyboard());
+            chip8.setSeed(3);
+            List<byte[]> states = new ArrayList<>();
+            try (SnapshotStore store = SnapshotStore.open(file, chip8.snapshotSize())) {
+                // more than two segments
+                for (int f = 0; f < 600; f++) {
+                    chip8.runFrame();
+                    assertEquals(f, store.append(chip8));
+                    states.add(Snapshots.of(chip8));
+                }
+            }
+
+            Chip8 copy = new Chip8(BundledRoms.load("maze"), new Screen(), new Keyboard());
+            try (SnapshotStore store = SnapshotStore.open(file, copy.snapshotSize())) {
+                assertEquals(states.size(), store.size());
+                for (int n : new int[]{599, 0, 255, 256, 511, 512, 300}) {
+                    store.restore(n, copy);
+                    assertTrue("snapshot " + n, Arrays.equals(states.get(n), Snapshots.of(copy)));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void snapshotsOfAnotherSizeAreRefused() throws Exception {
+        Path file = Files.createTempFile("snapshots", ".c8s");
+        Chip8 chip8 = new Chip8(BundledRoms.load("maze"), new Screen(), new Keyboard());
+        try (SnapshotStore store = SnapshotStore.open(file, chip8.snapshotSize() + 1)) {
+            store.append(chip8);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.zkq.emulator.chip8.stream;
+
+import com.github.zkq.emulator.chip8.BundledRoms;
+import com.github.zkq.emulator.chip8.core.Chip8;
+import com.github.zkq.emulator.chip8.core.CompatibilityProfile;
+import com.github.zkq.emulator.chip8.core.ExecutionMode;
+import com.github.zkq.emulator.chip8.core.ExtendedScreen;
+import com.github.zkq.emulator.chip8.core.Keyboard;
+import com.github.zkq.emulator.chip8.core.Rom;
+import com.github.zkq.emulator.chip8.core.Screen;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date:2026/10/19 10:45
+ * <p>
+ * {@link FrameCodec} round trips, and a {@link FrameStreamServer} streaming to a client over loopback.
+ *
+ * @author agent
+ */
+public class FrameCodecTest {
+
+    private static long[] decode(ByteBuffer frame, long[] base) {
+        long[] rows = base.clone();
+        frame.flip();
+        FrameCodec.decode(frame, rows);
+        assertEquals(0, frame.remaining());
+        return rows;
+    }
+
+    @Test
+    public void keyframeRoundTrip() {
+        long[] rows = new long[Screen.HIGH];
+        Random random = new Random(11);
+        for (int y = 0; y < rows.length; y++) {
+            rows[y] = random.nextLong();
+        }
+        ByteBuffer frame = ByteBuffer.allocate(FrameCodec.MAX_FRAME_SIZE);
+        FrameCodec.encodeKeyframe(rows, frame);
+        assertTrue(Arrays.equals(rows, decode(frame, new long[Screen.HIGH])));
+    }
+
+    @Test
+    public void deltaRoundTrip() {
+        Random random = new Random(13);
+        long[] base = new long[Screen.HIGH];
+        for (int round = 0; round < 200; round++) {
+            long[] rows = base.clone();
+            int changes = round % 40;
+            for (int c = 0; c < changes; c++) {
+                rows[random.nextInt(Screen.HIGH)] ^= (random.nextInt(256) & 0xFFL) << 8 * random.nextInt(8);
+            }
+            ByteBuffer frame = ByteBuffer.allocate(FrameCodec.MAX_FRAME_SIZE);
+            FrameCodec.encodeDelta(base, rows, frame);
+            assertTrue(frame.position() <= FrameCodec.MAX_FRAME_SIZE);
+            assertTrue(Arrays.equals(rows, decode(frame, base)));
+            base = rows;
+        }
+    }
+
+    @Test
+    public void fullyChangedDeltaFitsTheBound() {
+        long[] base = new long[Screen.HIGH];
+        long[] rows = new long[Screen.HIGH];
+        Arrays.fill(rows, -1L);
+        ByteBuffer frame = ByteBuffer.allocate(FrameCodec.MAX_FRAME_SIZE);
+        FrameCodec.encodeDelta(base, rows, frame);
+        assertTrue(Arrays.equals(rows, decode(frame, base)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFrameTypeIsRejected() {
+        FrameCodec.decode(ByteBuffer.wrap(new byte[]{9}), new long[Screen.HIGH]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void extendedMachinesAreRefused() throws Exception {
+        Chip8 chip8 = new Chip8(Rom.of(BundledRoms.load("maze")), new ExtendedScreen(), new Keyboard(),
+                                ExecutionMode.INTERPRETER, CompatibilityProfile.SUPER_CHIP);
+        new FrameStreamServer(chip8, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).close();
+    }
+
+    @Test(timeout = 20_000)
+    public void clientSeesTheServerScreenAndSendsKeys() throws Exception {
+        Chip8 chip8 = new Chip8(BundledRoms.load("maze"), new Screen(), new Keyboard());
+        FrameStreamServer server = new FrameStreamServer(chip8,
+                                                         new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Thread selector = new Thread(server, "frame stream");
+        selector.start();
+        try (FrameStreamClient client = new FrameStreamClient(server.getLocalAddress())) {
+            // the keyframe of the blank screen
+            client.readFrame();
+            long[] expected = new long[Screen.HIGH];
+            for (int f = 0; f < 120; f++) {
+                chip8.runFrame();
+            }
+            chip8.getScreen().copyRows(expected);
+            while (!Arrays.equals(expected, client.readFrame())) {
+                // skipped and intermediate frames
+            }
+
+            client.sendKey(0xC, true);
+            while (!chip8.getKeyboard().isPressed(0xC)) {
+                Thread.sleep(1);
+            }
+            client.sendKey(0xC, false);
+            while (chip8.getKeyboard().isPressed(0xC)) {
+                Thread.sleep(1);
+            }
+        } finally {
+            server.close();
+            selector.join();
+        }
+    }
+}